@@ -0,0 +1,19 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+
+/**
+ * A Bukkit command which isn't registered anywhere, passed to executors that are invoked directly.
+ */
+public class BenchmarkCommand extends Command {
+
+    public BenchmarkCommand(String name) {
+        super(name);
+    }
+
+    @Override
+    public boolean execute(CommandSender sender, String label, String[] arguments) {
+        return false;
+    }
+}
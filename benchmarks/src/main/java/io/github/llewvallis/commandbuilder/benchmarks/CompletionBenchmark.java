@@ -0,0 +1,69 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.arguments.StringSetArgument;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tab completes an argument whose candidates come from sets of increasing size, with a prefix matching a fraction of
+ * them and with no prefix at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompletionBenchmark {
+
+    private static final String[] EMPTY = { "" };
+
+    // Matches every candidate of the smallest set, and a hundred of each larger set
+    private static final String[] PREFIX = { "candidate0000" };
+
+    private static final String[] MISS = { "missing" };
+
+    @Param({ "10", "1000", "100000" })
+    public int candidateCount;
+
+    private final CommandSender sender = FakeServer.install().getConsole().recording(false).getSender();
+    private final Command command = new BenchmarkCommand("bench");
+
+    private TabExecutor executor;
+
+    @Setup
+    public void setup() {
+        Set<String> candidates = new HashSet<>();
+        for (int i = 0; i < candidateCount; i++) {
+            candidates.add(String.format("candidate%06d", i));
+        }
+
+        executor = new CommandBuilder()
+                .argument(StringSetArgument.copyOf(candidates))
+                .build(new CountingCallback());
+    }
+
+    @Benchmark
+    public List<String> completeEmpty() {
+        return executor.onTabComplete(sender, command, "bench", EMPTY);
+    }
+
+    @Benchmark
+    public List<String> completePrefix() {
+        return executor.onTabComplete(sender, command, "bench", PREFIX);
+    }
+
+    @Benchmark
+    public List<String> completeMiss() {
+        return executor.onTabComplete(sender, command, "bench", MISS);
+    }
+}
@@ -0,0 +1,147 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.CommandCallback;
+import io.github.llewvallis.commandbuilder.CompositeCommandBuilder;
+import io.github.llewvallis.commandbuilder.CompositeSubCommand;
+import io.github.llewvallis.commandbuilder.SubCommand;
+import io.github.llewvallis.commandbuilder.arguments.IntegerArgument;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs and tab completes a subcommand nested inside composite commands of increasing depth.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CompositeDispatchBenchmark {
+
+    private static final int SIBLINGS = 8;
+
+    @Param({ "1", "2", "3", "4" })
+    public int depth;
+
+    private final CommandSender sender = FakeServer.install().getConsole().recording(false).getSender();
+    private final Command command = new BenchmarkCommand("bench");
+    private final CountingCallback callback = new CountingCallback();
+
+    private TabExecutor executor;
+    private String[] arguments;
+    private String[] completionArguments;
+
+    @Setup
+    public void setup() {
+        CompositeCommandBuilder builder = new CompositeCommandBuilder();
+        configureLevel(builder, depth);
+        executor = builder.build();
+
+        arguments = new String[depth + 1];
+        completionArguments = new String[depth];
+
+        for (int i = 0; i < depth - 1; i++) {
+            arguments[i] = "nested" + (SIBLINGS - 1);
+            completionArguments[i] = arguments[i];
+        }
+
+        arguments[depth - 1] = "leaf" + (SIBLINGS - 1);
+        arguments[depth] = "42";
+
+        // Completes the names of the leaves at the deepest level
+        completionArguments[depth - 1] = "lea";
+    }
+
+    /**
+     * Add sibling leaves to a composite command, and nested composite commands if there are more levels to go.
+     */
+    private void configureLevel(CompositeCommandBuilder builder, int remainingDepth) {
+        for (int i = 0; i < SIBLINGS; i++) {
+            builder.command(new LeafCommand("leaf" + i, callback));
+
+            if (remainingDepth > 1) {
+                builder.nest(new NestedCommand("nested" + i, remainingDepth - 1));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean execute() {
+        return executor.onCommand(sender, command, "bench", arguments);
+    }
+
+    @Benchmark
+    public List<String> completeSubCommandName() {
+        return executor.onTabComplete(sender, command, "bench", completionArguments);
+    }
+
+    private class NestedCommand extends CompositeSubCommand {
+
+        private final String name;
+        private final int remainingDepth;
+
+        private NestedCommand(String name, int remainingDepth) {
+            this.name = name;
+            this.remainingDepth = remainingDepth;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "A nested composite command";
+        }
+
+        @Override
+        protected void configure(CompositeCommandBuilder builder) {
+            configureLevel(builder, remainingDepth);
+        }
+    }
+
+    private static class LeafCommand extends SubCommand {
+
+        private final String name;
+        private final CommandCallback callback;
+
+        private LeafCommand(String name, CommandCallback callback) {
+            this.name = name;
+            this.callback = callback;
+        }
+
+        @Override
+        public String getName() {
+            return name;
+        }
+
+        @Override
+        public String getDescription() {
+            return "A leaf command";
+        }
+
+        @Override
+        public String getUsageMessage() {
+            return name + " <value>";
+        }
+
+        @Override
+        protected void configure(CommandBuilder builder) {
+            builder.argument(new IntegerArgument());
+        }
+
+        @Override
+        protected CommandCallback getCallback() {
+            return callback;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandCallback;
+import io.github.llewvallis.commandbuilder.CommandContext;
+import io.github.llewvallis.commandbuilder.CommandParseException;
+
+import java.util.List;
+
+/**
+ * A callback which only counts its invocations, so that benchmarks measure the library rather than the command.
+ */
+public class CountingCallback implements CommandCallback {
+
+    private int successes = 0;
+    private int failures = 0;
+
+    @Override
+    public void onSuccess(List<Object> argumentValues, List<Object> variadicArgumentValues, CommandContext context) {
+        successes++;
+    }
+
+    @Override
+    public void onFailure(CommandParseException cause, CommandContext context) {
+        failures++;
+    }
+
+    public int getSuccesses() {
+        return successes;
+    }
+
+    public int getFailures() {
+        return failures;
+    }
+}
@@ -0,0 +1,78 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.arguments.IntegerArgument;
+import io.github.llewvallis.commandbuilder.arguments.StringArgument;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a command built by {@link CommandBuilder} with a growing number of arguments, including optional and variadic
+ * arguments.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DispatchBenchmark {
+
+    @Param({ "0", "3", "10" })
+    public int argumentCount;
+
+    private final CommandSender sender = FakeServer.install().getConsole().recording(false).getSender();
+    private final Command command = new BenchmarkCommand("bench");
+    private final CountingCallback callback = new CountingCallback();
+
+    private TabExecutor executor;
+    private String[] arguments;
+    private String[] invalidArguments;
+
+    @Setup
+    public void setup() {
+        CommandBuilder builder = new CommandBuilder();
+
+        switch (argumentCount) {
+            case 0:
+                arguments = new String[0];
+                invalidArguments = new String[] { "extra" };
+                break;
+            case 3:
+                builder.argument(new IntegerArgument())
+                        .argument(new StringArgument())
+                        .argument(new IntegerArgument().optional());
+
+                arguments = new String[] { "1", "two", "3" };
+                invalidArguments = new String[] { "one", "two", "3" };
+                break;
+            case 10:
+                builder.argument(new IntegerArgument())
+                        .argument(new StringArgument().optional())
+                        .variadicArgument(new IntegerArgument());
+
+                arguments = new String[] { "1", "two", "3", "4", "5", "6", "7", "8", "9", "10" };
+                invalidArguments = new String[] { "1", "two", "3", "4", "5", "6", "7", "8", "9", "ten" };
+                break;
+            default:
+                throw new IllegalArgumentException("unsupported argument count " + argumentCount);
+        }
+
+        executor = builder.build(callback);
+    }
+
+    @Benchmark
+    public boolean execute() {
+        return executor.onCommand(sender, command, "bench", arguments);
+    }
+
+    @Benchmark
+    public boolean executeInvalid() {
+        return executor.onCommand(sender, command, "bench", invalidArguments);
+    }
+}
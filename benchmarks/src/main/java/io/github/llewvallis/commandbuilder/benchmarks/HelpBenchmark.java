@@ -0,0 +1,108 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.CommandCallback;
+import io.github.llewvallis.commandbuilder.CompositeCommandBuilder;
+import io.github.llewvallis.commandbuilder.SubCommand;
+import io.github.llewvallis.commandbuilder.fixtures.FakeSender;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders the help of a composite command for a sender who only has the permissions of some of its subcommands.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpBenchmark {
+
+    @Param({ "10", "100" })
+    public int subCommandCount;
+
+    private static final String PERMISSION_PREFIX = "bench.sub.";
+
+    private static final String[] GENERAL_HELP = { "help" };
+    private static final String[] SPECIFIC_HELP = { "help", "sub0" };
+
+    private final Command command = new BenchmarkCommand("bench");
+
+    private CommandSender sender;
+    private TabExecutor executor;
+
+    @Setup
+    public void setup() {
+        FakeSender restricted = FakeServer.install().addPlayer("restricted").recording(false);
+        CompositeCommandBuilder builder = new CompositeCommandBuilder();
+        CountingCallback callback = new CountingCallback();
+
+        for (int i = 0; i < subCommandCount; i++) {
+            builder.command(new PermissionedCommand(i, callback));
+
+            // Grant the permission of every other subcommand
+            if (i % 2 == 0) {
+                restricted.grant(PERMISSION_PREFIX + i);
+            }
+        }
+
+        executor = builder.build();
+        sender = restricted.getSender();
+    }
+
+    @Benchmark
+    public boolean generalHelp() {
+        return executor.onCommand(sender, command, "bench", GENERAL_HELP);
+    }
+
+    @Benchmark
+    public boolean specificHelp() {
+        return executor.onCommand(sender, command, "bench", SPECIFIC_HELP);
+    }
+
+    private static class PermissionedCommand extends SubCommand {
+
+        private final int index;
+        private final CommandCallback callback;
+
+        private PermissionedCommand(int index, CommandCallback callback) {
+            this.index = index;
+            this.callback = callback;
+        }
+
+        @Override
+        public String getName() {
+            return "sub" + index;
+        }
+
+        @Override
+        public String getDescription() {
+            return "Subcommand number " + index;
+        }
+
+        @Override
+        public String getUsageMessage() {
+            return getName();
+        }
+
+        @Override
+        public Optional<String> getPermission() {
+            return Optional.of(PERMISSION_PREFIX + index);
+        }
+
+        @Override
+        protected void configure(CommandBuilder builder) { }
+
+        @Override
+        protected CommandCallback getCallback() {
+            return callback;
+        }
+    }
+}
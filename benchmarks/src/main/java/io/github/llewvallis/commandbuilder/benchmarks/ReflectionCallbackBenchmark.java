@@ -0,0 +1,96 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.CommandContext;
+import io.github.llewvallis.commandbuilder.ExecuteCommand;
+import io.github.llewvallis.commandbuilder.OptionalArg;
+import io.github.llewvallis.commandbuilder.ReflectionCommandCallback;
+import io.github.llewvallis.commandbuilder.arguments.IntegerArgument;
+import io.github.llewvallis.commandbuilder.arguments.StringArgument;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares running an inferred command through {@link ReflectionCommandCallback} with running the same arguments
+ * through a plain callback. The static case covers {@link ExecuteCommand} methods which have no instance to be bound
+ * to.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionCallbackBenchmark {
+
+    private static final String[] ARGUMENTS = { "1", "two", "3", "4", "5" };
+
+    private final CommandSender sender = FakeServer.install().getConsole().recording(false).getSender();
+    private final Command command = new BenchmarkCommand("bench");
+
+    private TabExecutor reflectionExecutor;
+    private TabExecutor staticReflectionExecutor;
+    private TabExecutor plainExecutor;
+
+    @Setup
+    public void setup() {
+        Target target = new Target();
+        reflectionExecutor = new CommandBuilder()
+                .infer(target)
+                .build(new ReflectionCommandCallback(target));
+
+        StaticTarget staticTarget = new StaticTarget();
+        staticReflectionExecutor = new CommandBuilder()
+                .infer(staticTarget)
+                .build(new ReflectionCommandCallback(staticTarget));
+
+        plainExecutor = new CommandBuilder()
+                .argument(new IntegerArgument())
+                .argument(new StringArgument())
+                .argument(new IntegerArgument().optional())
+                .variadicArgument(new IntegerArgument())
+                .build(new CountingCallback());
+    }
+
+    @Benchmark
+    public boolean reflection() {
+        return reflectionExecutor.onCommand(sender, command, "bench", ARGUMENTS);
+    }
+
+    @Benchmark
+    public boolean staticReflection() {
+        return staticReflectionExecutor.onCommand(sender, command, "bench", ARGUMENTS);
+    }
+
+    @Benchmark
+    public boolean plain() {
+        return plainExecutor.onCommand(sender, command, "bench", ARGUMENTS);
+    }
+
+    public static class Target {
+
+        private long total = 0;
+
+        @ExecuteCommand
+        public void execute(CommandContext ctx, int a, String b, @OptionalArg Integer c,
+                            @IntegerArgument.Arg int... rest) {
+            total += a + b.length() + (c == null ? 0 : c) + rest.length;
+        }
+    }
+
+    public static class StaticTarget {
+
+        private static long total = 0;
+
+        @ExecuteCommand
+        public static void execute(CommandContext ctx, int a, String b, @OptionalArg Integer c,
+                                   @IntegerArgument.Arg int... rest) {
+            total += a + b.length() + (c == null ? 0 : c) + rest.length;
+        }
+    }
+}
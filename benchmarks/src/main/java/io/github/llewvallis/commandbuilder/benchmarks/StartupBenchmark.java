@@ -0,0 +1,123 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Times each phase of registering the commands of a generated plugin JAR, with a fresh class loader for every
+ * invocation so that class loading is included.
+ *
+ * The {@code named} parameter only affects {@link #register()} and {@link #registerSerial()}, since the other phases
+ * create every command regardless. See {@link StartupReport} for class loading counts and retained heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(3)
+public class StartupBenchmark {
+
+    @Param({ "1000", "10000" })
+    public int classCount;
+
+    @Param({ "50", "500" })
+    public int commandClassCount;
+
+    @Param({ "false", "true" })
+    public boolean named;
+
+    private SyntheticJar jar;
+    private File dataFolder;
+    private List<String> classNames;
+
+    private SyntheticPlugin plugin;
+    private List<Object> instances;
+    private List<SyntheticPlugin.InferredCommand> inferredCommands;
+
+    @Setup(Level.Trial)
+    public void setupJar() throws IOException {
+        jar = SyntheticJar.generate(classCount, commandClassCount, named);
+        dataFolder = Files.createTempDirectory("command-builder-startup").toFile();
+
+        // Scanning once with the data folder also writes the scan cache
+        try (SyntheticPlugin plugin = new SyntheticPlugin(jar, dataFolder)) {
+            classNames = plugin.scan();
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void setupPlugin(BenchmarkParams params) throws ReflectiveOperationException {
+        String benchmark = params.getBenchmark();
+        plugin = new SyntheticPlugin(jar, benchmark.endsWith(".scanCached") ? dataFolder : null);
+
+        if (benchmark.endsWith(".infer") || benchmark.endsWith(".build")) {
+            instances = plugin.instantiate(classNames);
+        }
+
+        if (benchmark.endsWith(".build")) {
+            inferredCommands = plugin.infer(instances);
+        }
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDownPlugin() throws IOException {
+        plugin.close();
+        plugin = null;
+        instances = null;
+        inferredCommands = null;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownJar() throws IOException {
+        try (Stream<Path> paths = Files.walk(dataFolder.toPath())) {
+            paths.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public List<String> scan() throws IOException {
+        return plugin.scan();
+    }
+
+    @Benchmark
+    public List<String> scanCached() throws IOException {
+        return plugin.scan();
+    }
+
+    @Benchmark
+    public List<Object> instantiate() throws ReflectiveOperationException {
+        return plugin.instantiate(classNames);
+    }
+
+    @Benchmark
+    public List<SyntheticPlugin.InferredCommand> infer() {
+        return plugin.infer(instances);
+    }
+
+    @Benchmark
+    public Object build() {
+        return plugin.build(inferredCommands);
+    }
+
+    @Benchmark
+    public SyntheticPlugin register() {
+        plugin.register(Runtime.getRuntime().availableProcessors());
+        return plugin;
+    }
+
+    @Benchmark
+    public SyntheticPlugin registerSerial() {
+        plugin.register(1);
+        return plugin;
+    }
+}
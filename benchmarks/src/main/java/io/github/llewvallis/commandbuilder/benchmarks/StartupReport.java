@@ -0,0 +1,95 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+
+import java.lang.management.ClassLoadingMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.ref.Reference;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Registers the commands of a generated plugin JAR once in a fresh JVM, reporting how long it took, how many classes
+ * were loaded and how much heap is retained by the registered commands. Then runs the phases timed by
+ * {@link StartupBenchmark} one at a time with a second copy of the plugin.
+ *
+ * Takes the number of classes, the number of command classes and whether the commands are named, which default to
+ * 10000, 500 and false.
+ */
+public class StartupReport {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+    private static final ClassLoadingMXBean CLASS_LOADING = ManagementFactory.getClassLoadingMXBean();
+
+    public static void main(String[] args) throws Exception {
+        int classCount = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int commandClassCount = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        boolean named = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        SyntheticJar jar = SyntheticJar.generate(classCount, commandClassCount, named);
+        FakeServer.install();
+
+        System.out.printf("%s: %d classes, %d command classes, %d top level commands%n", jar.getFile(), classCount,
+                commandClassCount, jar.getCommandNames().size());
+
+        long heapBefore = settledHeapUsage();
+        long jvmClassesBefore = CLASS_LOADING.getTotalLoadedClassCount();
+
+        SyntheticPlugin registeredPlugin = new SyntheticPlugin(jar, null);
+        long start = System.nanoTime();
+        registeredPlugin.register(Runtime.getRuntime().availableProcessors());
+        long registerTime = System.nanoTime() - start;
+
+        long jvmClassesLoaded = CLASS_LOADING.getTotalLoadedClassCount() - jvmClassesBefore;
+        long retainedHeap = settledHeapUsage() - heapBefore;
+
+        System.out.println();
+        System.out.printf("register              %10.2f ms%n", registerTime / 1e6);
+        System.out.printf("classes loaded (jar)  %10d%n", registeredPlugin.getLoadedClassCount());
+        System.out.printf("classes loaded (jvm)  %10d%n", jvmClassesLoaded);
+        System.out.printf("retained heap         %10.1f KiB%n", retainedHeap / 1024.0);
+
+        Reference.reachabilityFence(registeredPlugin);
+
+        try (SyntheticPlugin plugin = new SyntheticPlugin(jar, null)) {
+            List<String> classNames = timePhase("scan", plugin, plugin::scan);
+            List<Object> instances = timePhase("instantiate", plugin, () -> plugin.instantiate(classNames));
+            List<SyntheticPlugin.InferredCommand> inferredCommands = timePhase("infer", plugin,
+                    () -> plugin.infer(instances));
+            timePhase("build", plugin, () -> plugin.build(inferredCommands));
+        }
+
+        registeredPlugin.close();
+    }
+
+    private static <T> T timePhase(String phase, SyntheticPlugin plugin, Callable<T> task) throws Exception {
+        long start = System.nanoTime();
+        T result = task.call();
+        long time = System.nanoTime() - start;
+
+        System.out.printf("%-21s %10.2f ms, %d classes loaded (jar)%n", phase, time / 1e6,
+                plugin.getLoadedClassCount());
+
+        return result;
+    }
+
+    // Collect until the heap stops shrinking, since a single request may not free everything
+    private static long settledHeapUsage() throws InterruptedException {
+        long usage = Long.MAX_VALUE;
+
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            Thread.sleep(50);
+
+            long newUsage = MEMORY.getHeapMemoryUsage().getUsed();
+            if (newUsage >= usage) {
+                return newUsage;
+            }
+
+            usage = newUsage;
+        }
+
+        return usage;
+    }
+}
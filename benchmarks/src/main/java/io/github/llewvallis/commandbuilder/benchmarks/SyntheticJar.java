@@ -0,0 +1,356 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.regex.MatchResult;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Generates a plugin JAR with a given number of classes, some of which are auto commands.
+ *
+ * The commands are laid out as a repeating mix of plain commands, composite commands with subcommands and composite
+ * commands with a nested composite subcommand, and their callbacks cycle through the built in parser annotations. The
+ * rest of the classes are filler, half of which are in the scanned package so that the scanner has to read and reject
+ * them. Generated JARs are kept in the temporary directory and reused by later runs with the same shape.
+ */
+public class SyntheticJar {
+
+    /**
+     * The pattern which matches the classes which should be scanned for commands.
+     */
+    public static final String PATTERN = "^synthetic\\.commands\\.";
+
+    private static final String COMMAND_PACKAGE = "synthetic.commands";
+    private static final String SCANNED_FILLER_PACKAGE = "synthetic.commands.model";
+    private static final String UNSCANNED_FILLER_PACKAGE = "synthetic.util";
+
+    // The number of classes used by each kind of command tree, which are generated in this order
+    private static final int[] TREE_SIZES = { 1, 4, 1, 6 };
+
+    private static final String[] PARAMETER_LISTS = {
+            "int a0",
+            "@IntegerArgument.Arg(min = 0, max = 100) int a0, String a1",
+            "@FloatArgument.Arg(min = 0, max = 1) float a0, double a1",
+            "@StringSetArgument.Arg({ \"red\", \"green\", \"blue\" }) String a0, @OptionalArg String a1",
+            "String a0, int a1, @StringSetArgument.Arg({ \"on\", \"off\" }) @OptionalArg String a2",
+            "@MemberArg(\"parser\") String a0",
+    };
+
+    private static final Pattern PARAMETER_NAME = Pattern.compile("\\ba\\d\\b");
+
+    private final File file;
+    private final List<String> commandNames;
+    private final int commandClassCount;
+
+    private SyntheticJar(File file, List<String> commandNames, int commandClassCount) {
+        this.file = file;
+        this.commandNames = commandNames;
+        this.commandClassCount = commandClassCount;
+    }
+
+    /**
+     * The JAR file.
+     */
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * The names of the top level commands, which need to be declared by the plugin.
+     */
+    public List<String> getCommandNames() {
+        return commandNames;
+    }
+
+    /**
+     * The number of classes annotated with {@code AutoCommand} or {@code AutoSubCommand}.
+     */
+    public int getCommandClassCount() {
+        return commandClassCount;
+    }
+
+    /**
+     * Get a JAR with the given number of classes, of which {@code commandClassCount} are auto commands or
+     * subcommands, generating it if it doesn't already exist.
+     *
+     * If {@code named} is set the top level commands declare their names in their annotations, so their creation is
+     * deferred.
+     */
+    public static SyntheticJar generate(int classCount, int commandClassCount, boolean named) {
+        if (commandClassCount < 0 || commandClassCount > classCount) {
+            throw new IllegalArgumentException("cannot have " + commandClassCount + " commands in " + classCount +
+                    " classes");
+        }
+
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "command-builder-benchmarks");
+        Path jar = directory.resolve("synthetic-" + classCount + "-" + commandClassCount + (named ? "-named" : "")
+                + ".jar");
+
+        Generator generator = new Generator(named);
+        generator.generateCommands(commandClassCount);
+        generator.generateFiller(classCount - commandClassCount);
+
+        try {
+            if (!Files.exists(jar)) {
+                Files.createDirectories(directory);
+                generator.compile(jar);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("failed to generate " + jar, e);
+        }
+
+        return new SyntheticJar(jar.toFile(), Collections.unmodifiableList(generator.commandNames),
+                commandClassCount);
+    }
+
+    private static class Generator {
+
+        private final boolean named;
+
+        private final List<Source> sources = new ArrayList<>();
+        private final List<String> commandNames = new ArrayList<>();
+
+        private int classIndex = 0;
+
+        private Generator(boolean named) {
+            this.named = named;
+        }
+
+        private void generateCommands(int count) {
+            int remaining = count;
+
+            for (int tree = 0; remaining > 0; tree++) {
+                int size = TREE_SIZES[tree % TREE_SIZES.length];
+
+                // Fill whatever is left over with plain commands
+                if (size > remaining) {
+                    size = 1;
+                }
+
+                if (size == 1) {
+                    generateCommand();
+                } else {
+                    String parent = generateCompositeCommand();
+
+                    if (size == 4) {
+                        generateSubCommands(parent, 3);
+                    } else {
+                        generateSubCommands(parent, 2);
+                        generateSubCommands(generateCompositeSubCommand(parent), 2);
+                    }
+                }
+
+                remaining -= size;
+            }
+        }
+
+        private void generateCommand() {
+            int index = classIndex++;
+            String name = "cmd" + index;
+            commandNames.add(name);
+
+            add(COMMAND_PACKAGE, "Command" + index,
+                    autoCommand(name) +
+                    "public class Command" + index + " extends TopLevelCommand {\n" +
+                    nameMethod(name) +
+                    callback(index) +
+                    "}\n");
+        }
+
+        private String generateCompositeCommand() {
+            int index = classIndex++;
+            String name = "cmd" + index;
+            commandNames.add(name);
+
+            return add(COMMAND_PACKAGE, "Command" + index,
+                    autoCommand(name) +
+                    "public class Command" + index + " extends CompositeTopLevelCommand {\n" +
+                    nameMethod(name) +
+                    "}\n");
+        }
+
+        private String generateCompositeSubCommand(String parent) {
+            int index = classIndex++;
+
+            return add(COMMAND_PACKAGE, "Command" + index,
+                    "@AutoSubCommand(" + parent + ".class)\n" +
+                    "public class Command" + index + " extends CompositeSubCommand {\n" +
+                    nameMethod("group" + index) +
+                    descriptionMethod(index) +
+                    "}\n");
+        }
+
+        private void generateSubCommands(String parent, int count) {
+            for (int i = 0; i < count; i++) {
+                int index = classIndex++;
+
+                add(COMMAND_PACKAGE, "Command" + index,
+                        "@AutoSubCommand(" + parent + ".class)\n" +
+                        "public class Command" + index + " extends SubCommand {\n" +
+                        nameMethod("sub" + index) +
+                        descriptionMethod(index) +
+                        "    @Override\n" +
+                        "    public String getUsageMessage() {\n" +
+                        "        return \"sub" + index + " <arguments>\";\n" +
+                        "    }\n" +
+                        callback(index) +
+                        "}\n");
+            }
+        }
+
+        private void generateFiller(int count) {
+            for (int i = 0; i < count; i++) {
+                int index = classIndex++;
+                String packageName = i % 2 == 0 ? SCANNED_FILLER_PACKAGE : UNSCANNED_FILLER_PACKAGE;
+
+                add(packageName, "Filler" + index,
+                        "public class Filler" + index + " {\n" +
+                        "    private static final String KEY = \"filler-" + index + "\";\n" +
+                        "    private final Map<String, Integer> values = new HashMap<>();\n" +
+                        "    public int get(String key) {\n" +
+                        "        return values.getOrDefault(KEY + key, " + index + ");\n" +
+                        "    }\n" +
+                        "    public void put(String key, int value) {\n" +
+                        "        values.merge(KEY + key, value, Integer::sum);\n" +
+                        "    }\n" +
+                        "    @Override\n" +
+                        "    public String toString() {\n" +
+                        "        return KEY + values;\n" +
+                        "    }\n" +
+                        "}\n");
+            }
+        }
+
+        private String autoCommand(String name) {
+            return named ? "@AutoCommand(name = \"" + name + "\")\n" : "@AutoCommand\n";
+        }
+
+        private String nameMethod(String name) {
+            return "    @Override\n" +
+                    "    public String getName() {\n" +
+                    "        return \"" + name + "\";\n" +
+                    "    }\n";
+        }
+
+        private String descriptionMethod(int index) {
+            return "    @Override\n" +
+                    "    public String getDescription() {\n" +
+                    "        return \"Synthetic subcommand " + index + "\";\n" +
+                    "    }\n";
+        }
+
+        private String callback(int index) {
+            String parameters = PARAMETER_LISTS[index % PARAMETER_LISTS.length];
+            String message = PARAMETER_NAME.matcher(parameters).results()
+                    .map(MatchResult::group)
+                    .collect(Collectors.joining(" + \" \" + ", "\"\" + ", ""));
+
+            return "    private final ArgumentParser<String> parser = new StringSetArgument(\"x\", \"y\", \"z\");\n" +
+                    "    @ExecuteCommand\n" +
+                    "    private void execute(CommandContext ctx, " + parameters + ") {\n" +
+                    "        ctx.getSender().sendMessage(" + message + ");\n" +
+                    "    }\n";
+        }
+
+        private String add(String packageName, String simpleName, String body) {
+            String source = "package " + packageName + ";\n" +
+                    "import io.github.llewvallis.commandbuilder.*;\n" +
+                    "import io.github.llewvallis.commandbuilder.arguments.*;\n" +
+                    "import java.util.*;\n" +
+                    body;
+
+            sources.add(new Source(packageName.replace('.', '/') + "/" + simpleName + ".java", source));
+            return packageName + "." + simpleName;
+        }
+
+        private void compile(Path jar) throws IOException {
+            JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+            if (compiler == null) {
+                throw new IllegalStateException("generating a synthetic jar requires a JDK");
+            }
+
+            Path workDirectory = Files.createTempDirectory("command-builder-synthetic");
+
+            try {
+                Path sourceDirectory = workDirectory.resolve("src");
+                Path classDirectory = workDirectory.resolve("classes");
+                Files.createDirectories(classDirectory);
+
+                List<File> sourceFiles = new ArrayList<>();
+                for (Source source : sources) {
+                    Path path = sourceDirectory.resolve(source.path);
+                    Files.createDirectories(path.getParent());
+                    Files.writeString(path, source.content);
+                    sourceFiles.add(path.toFile());
+                }
+
+                try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null,
+                        StandardCharsets.UTF_8)) {
+                    Iterable<? extends JavaFileObject> units = fileManager.getJavaFileObjectsFromFiles(sourceFiles);
+                    List<String> options = List.of(
+                            "-proc:none",
+                            "-nowarn",
+                            "-classpath", System.getProperty("java.class.path"),
+                            "-d", classDirectory.toString());
+
+                    if (!compiler.getTask(null, fileManager, null, options, null, units).call()) {
+                        throw new IllegalStateException("failed to compile the synthetic jar");
+                    }
+                }
+
+                // Write to a temporary file first so that concurrent forks never see a partial JAR
+                Path temporaryJar = Files.createTempFile(jar.getParent(), "synthetic", ".jar");
+                writeJar(classDirectory, temporaryJar);
+                Files.move(temporaryJar, jar, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                try (Stream<Path> paths = Files.walk(workDirectory)) {
+                    paths.sorted(Collections.reverseOrder()).map(Path::toFile).forEach(File::delete);
+                }
+            }
+        }
+
+        private void writeJar(Path classDirectory, Path jar) throws IOException {
+            List<Path> classFiles;
+            try (Stream<Path> paths = Files.walk(classDirectory)) {
+                classFiles = paths.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+
+            try (OutputStream out = Files.newOutputStream(jar); JarOutputStream jarOut = new JarOutputStream(out)) {
+                for (Path classFile : classFiles) {
+                    String entryName = classDirectory.relativize(classFile).toString().replace(File.separatorChar, '/');
+                    jarOut.putNextEntry(new JarEntry(entryName));
+                    Files.copy(classFile, jarOut);
+                    jarOut.closeEntry();
+                }
+            }
+        }
+    }
+
+    private static class Source {
+
+        private final String path;
+        private final String content;
+
+        private Source(String path, String content) {
+            this.path = path;
+            this.content = content;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.llewvallis.commandbuilder.benchmarks;
+
+import io.github.llewvallis.commandbuilder.AutoCommandBuilder;
+import io.github.llewvallis.commandbuilder.AutoCommandScanner;
+import io.github.llewvallis.commandbuilder.AutoCommandSource;
+import io.github.llewvallis.commandbuilder.CommandBuilder;
+import io.github.llewvallis.commandbuilder.CommandCallback;
+import io.github.llewvallis.commandbuilder.ReflectionCommandCallback;
+import io.github.llewvallis.commandbuilder.SubCommand;
+import io.github.llewvallis.commandbuilder.TopLevelCommand;
+import io.github.llewvallis.commandbuilder.fixtures.FakeServer;
+import org.bukkit.command.TabExecutor;
+import org.bukkit.plugin.Plugin;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A plugin loaded from a {@link SyntheticJar} with a class loader of its own, so that each instance pays the full cost
+ * of loading its classes.
+ *
+ * Registration can be run as a whole with {@link #register(int)}, or one phase at a time. The phases are what
+ * {@link AutoCommandBuilder} does for each command, but run over every command before moving on to the next phase and
+ * without wiring subcommands into their parents.
+ */
+public class SyntheticPlugin implements Closeable {
+
+    private final SyntheticJar jar;
+    private final CountingClassLoader classLoader;
+    private final Plugin plugin;
+    private final File dataFolder;
+    private final AutoCommandSource source;
+
+    /**
+     * Load a plugin from the JAR, caching the scan in {@code dataFolder} or scanning every time if it is null.
+     */
+    public SyntheticPlugin(SyntheticJar jar, File dataFolder) {
+        this.jar = jar;
+        this.classLoader = new CountingClassLoader(jar.getFile());
+        this.plugin = createPlugin(jar, dataFolder);
+        this.dataFolder = dataFolder;
+        this.source = AutoCommandScanner.jarSource(jar.getFile(), SyntheticJar.PATTERN, classLoader, dataFolder);
+    }
+
+    private static Plugin createPlugin(SyntheticJar jar, File dataFolder) {
+        FakeServer server = FakeServer.install();
+        Plugin plugin = server.createPlugin("Synthetic", dataFolder);
+
+        for (String commandName : jar.getCommandNames()) {
+            server.createCommand(plugin, commandName);
+        }
+
+        return plugin;
+    }
+
+    /**
+     * Find the names of the command classes in the JAR.
+     */
+    public List<String> scan() throws IOException {
+        return AutoCommandScanner.scanClassNames(jar.getFile(), SyntheticJar.PATTERN, dataFolder);
+    }
+
+    /**
+     * Load, initialize and instantiate each of the command classes.
+     */
+    public List<Object> instantiate(List<String> classNames) throws ReflectiveOperationException {
+        List<Object> instances = new ArrayList<>();
+        for (String className : classNames) {
+            Class<?> cls = Class.forName(className, true, classLoader);
+            instances.add(cls.getDeclaredConstructor().newInstance());
+        }
+
+        return instances;
+    }
+
+    /**
+     * Infer the arguments and create the callback of each command and subcommand which has them, skipping composite
+     * commands.
+     */
+    public List<InferredCommand> infer(List<Object> instances) {
+        List<InferredCommand> inferredCommands = new ArrayList<>();
+        for (Object instance : instances) {
+            if (instance instanceof TopLevelCommand || instance instanceof SubCommand) {
+                CommandBuilder builder = new CommandBuilder().infer(instance);
+                inferredCommands.add(new InferredCommand(builder, new ReflectionCommandCallback(instance)));
+            }
+        }
+
+        return inferredCommands;
+    }
+
+    /**
+     * Build an executor for each inferred command.
+     */
+    public List<TabExecutor> build(List<InferredCommand> inferredCommands) {
+        List<TabExecutor> executors = new ArrayList<>();
+        for (InferredCommand inferredCommand : inferredCommands) {
+            executors.add(inferredCommand.builder.build(inferredCommand.callback));
+        }
+
+        return executors;
+    }
+
+    /**
+     * Register the plugin's commands with {@link AutoCommandBuilder}, as a plugin would when it is enabled.
+     */
+    public void register(int parallelism) {
+        new AutoCommandBuilder(plugin)
+                .source(source)
+                .parallelism(parallelism)
+                .register();
+    }
+
+    /**
+     * The number of classes which have been loaded from the JAR.
+     */
+    public int getLoadedClassCount() {
+        return classLoader.loadedClassCount.get();
+    }
+
+    public SyntheticJar getJar() {
+        return jar;
+    }
+
+    @Override
+    public void close() throws IOException {
+        classLoader.close();
+    }
+
+    /**
+     * A command whose arguments have been inferred, ready to be built.
+     */
+    public static class InferredCommand {
+
+        private final CommandBuilder builder;
+        private final CommandCallback callback;
+
+        private InferredCommand(CommandBuilder builder, CommandCallback callback) {
+            this.builder = builder;
+            this.callback = callback;
+        }
+    }
+
+    private static class CountingClassLoader extends URLClassLoader {
+
+        static {
+            registerAsParallelCapable();
+        }
+
+        private final AtomicInteger loadedClassCount = new AtomicInteger();
+
+        private CountingClassLoader(File jar) {
+            super(new URL[]{ toUrl(jar) }, SyntheticPlugin.class.getClassLoader());
+        }
+
+        // Only called for classes which the parent couldn't find, which are the ones in the JAR
+        @Override
+        protected Class<?> findClass(String name) throws ClassNotFoundException {
+            Class<?> cls = super.findClass(name);
+            loadedClassCount.incrementAndGet();
+            return cls;
+        }
+
+        private static URL toUrl(File jar) {
+            try {
+                return jar.toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+    }
+}
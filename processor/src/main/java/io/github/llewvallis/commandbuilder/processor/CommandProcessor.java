@@ -0,0 +1,612 @@
+package io.github.llewvallis.commandbuilder.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.*;
+
+/**
+ * Generates a {@code CommandDispatcher} for each class annotated with {@code AutoCommand} or {@code AutoSubCommand}, and
+ * each class declaring an {@code ExecuteCommand} method.
+ *
+ * The dispatcher constructs the class and calls its {@code ExecuteCommand} method directly, so that the library can
+ * skip the reflection it would otherwise need. Anything the dispatcher can't reach, such as a private method or
+ * constructor, is left to reflection at runtime. Mistakes which would otherwise only be reported when the command is
+ * registered or run, such as an {@code ExecuteCommand} method which doesn't return void, are reported as compile
+ * errors.
+ *
+ * Every class annotated with {@code AutoCommand} or {@code AutoSubCommand} is also listed in the index
+ * {@value #INDEX}, which {@code AutoCommandBuilder#indexSource()} reads instead of scanning for classes. The index only
+ * covers the classes of a single compilation, so incremental builds which recompile some classes alone should be
+ * avoided when relying on it.
+ */
+public class CommandProcessor extends AbstractProcessor {
+
+    private static final String PACKAGE = "io.github.llewvallis.commandbuilder";
+
+    private static final String AUTO_COMMAND = PACKAGE + ".AutoCommand";
+    private static final String AUTO_SUB_COMMAND = PACKAGE + ".AutoSubCommand";
+    private static final String EXECUTE_COMMAND = PACKAGE + ".ExecuteCommand";
+    private static final String PARSER_ANNOTATION = PACKAGE + ".ParserAnnotation";
+    private static final String OPTIONAL_ARG = PACKAGE + ".OptionalArg";
+
+    private static final String COMMAND_DISPATCHER = PACKAGE + ".CommandDispatcher";
+    private static final String COMMAND_CONTEXT = PACKAGE + ".CommandContext";
+    private static final String VARIADIC_ARGUMENTS = PACKAGE + ".VariadicArguments";
+    private static final String AUTO_COMMAND_CONTEXT = PACKAGE + ".AutoCommandContext";
+
+    private static final String SUFFIX = "_CommandDispatcher";
+
+    private static final String INDEX = "META-INF/command-builder/auto-commands";
+
+    private Elements elements;
+    private Types types;
+    private Messager messager;
+    private Filer filer;
+
+    private final Set<String> generatedNames = new HashSet<>();
+
+    private final Map<String, String> indexEntries = new TreeMap<>();
+    private final List<Element> indexedElements = new ArrayList<>();
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+        messager = processingEnv.getMessager();
+        filer = processingEnv.getFiler();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        return Set.of(AUTO_COMMAND, AUTO_SUB_COMMAND, EXECUTE_COMMAND);
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        Set<TypeElement> commandClasses = new LinkedHashSet<>();
+
+        for (TypeElement annotation : annotations) {
+            String name = annotation.getQualifiedName().toString();
+
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (name.equals(EXECUTE_COMMAND) && element.getKind() == ElementKind.METHOD) {
+                    ExecutableElement method = (ExecutableElement) element;
+                    checkExecuteMethod(method);
+
+                    TypeElement owner = (TypeElement) method.getEnclosingElement();
+                    if (owner.getKind() == ElementKind.CLASS && !owner.getModifiers().contains(Modifier.ABSTRACT)) {
+                        commandClasses.add(owner);
+                    }
+                } else if (element.getKind() == ElementKind.CLASS) {
+                    commandClasses.add((TypeElement) element);
+                }
+            }
+        }
+
+        for (TypeElement commandClass : commandClasses) {
+            generate(commandClass);
+            index(commandClass);
+        }
+
+        if (roundEnv.processingOver() && !indexEntries.isEmpty()) {
+            writeIndex();
+        }
+
+        // Other processors may be interested in the annotations as well
+        return false;
+    }
+
+    private void checkExecuteMethod(ExecutableElement method) {
+        TypeElement owner = (TypeElement) method.getEnclosingElement();
+
+        long annotatedCount = ElementFilter.methodsIn(owner.getEnclosedElements()).stream()
+                .filter(sibling -> getAnnotation(sibling, EXECUTE_COMMAND) != null)
+                .count();
+
+        if (annotatedCount > 1) {
+            error(method, "multiple methods in class " + owner + " were annotated with " + EXECUTE_COMMAND);
+        }
+
+        if (method.getReturnType().getKind() != TypeKind.VOID) {
+            error(method, "return type must be void");
+        }
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        TypeMirror contextType = elements.getTypeElement(COMMAND_CONTEXT).asType();
+
+        if (parameters.isEmpty() || !types.isAssignable(contextType, types.erasure(parameters.get(0).asType()))) {
+            error(method, "the first parameter must accept a " + COMMAND_CONTEXT);
+        }
+
+        TypeElement variadicArguments = elements.getTypeElement(VARIADIC_ARGUMENTS);
+
+        for (int i = 1; i < parameters.size(); i++) {
+            VariableElement parameter = parameters.get(i);
+            checkParameter(parameter);
+
+            boolean last = i == parameters.size() - 1;
+            if (!last && variadicArguments != null
+                    && types.isSameType(types.erasure(parameter.asType()), types.erasure(variadicArguments.asType()))) {
+                error(parameter, "only the last parameter can be " + VARIADIC_ARGUMENTS);
+            }
+        }
+    }
+
+    private void checkParameter(VariableElement parameter) {
+        boolean hasParserAnnotation = false;
+
+        for (AnnotationMirror annotation : parameter.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+            AnnotationMirror metaAnnotation = getAnnotation(annotationType, PARSER_ANNOTATION);
+
+            if (metaAnnotation == null) {
+                continue;
+            }
+
+            boolean transformsPrevious = (Boolean) getValue(metaAnnotation, "transformsPrevious");
+            if (!transformsPrevious && hasParserAnnotation) {
+                error(parameter, "has a non-transforming annotation after a previous argument inference annotation");
+            }
+
+            hasParserAnnotation = true;
+
+            boolean isOptionalArg = ((TypeElement) annotationType).getQualifiedName().contentEquals(OPTIONAL_ARG);
+            if (isOptionalArg && (Boolean) getValue(annotation, "optional") && parameter.asType().getKind().isPrimitive()) {
+                error(parameter, "primitive type " + parameter.asType() + " cannot be optional, try using the boxed "
+                        + "type instead");
+            }
+        }
+    }
+
+    private void generate(TypeElement commandClass) {
+        NestingKind nesting = commandClass.getNestingKind();
+        if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) {
+            return;
+        }
+
+        String packageName = elements.getPackageOf(commandClass).getQualifiedName().toString();
+        if (!isAccessible(commandClass, packageName)) {
+            return;
+        }
+
+        String binaryName = elements.getBinaryName(commandClass).toString();
+        String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        String dispatcherName = simpleBinaryName.replace('$', '_') + SUFFIX;
+        String qualifiedDispatcherName = packageName.isEmpty() ? dispatcherName : packageName + "." + dispatcherName;
+
+        if (!generatedNames.add(qualifiedDispatcherName)) {
+            return;
+        }
+
+        String commandClassName = typeName(commandClass.asType());
+        ExecutableElement executeMethod = findExecuteMethod(commandClass);
+        String instantiation = getInstantiation(commandClass, packageName);
+
+        String executeMethodLookup = null;
+        String execution = null;
+
+        if (executeMethod != null && isSignatureAccessible(executeMethod, packageName)) {
+            executeMethodLookup = getExecuteMethodLookup(executeMethod);
+
+            if (isMethodAccessible(executeMethod, packageName)) {
+                execution = getExecution(executeMethod, commandClassName);
+            }
+        }
+
+        try (Writer writer = filer.createSourceFile(qualifiedDispatcherName, commandClass).openWriter()) {
+            writer.write(render(packageName, dispatcherName, commandClassName, executeMethodLookup, instantiation,
+                    execution));
+        } catch (IOException e) {
+            error(commandClass, "could not write " + qualifiedDispatcherName + ": " + e.getMessage());
+        }
+    }
+
+    private void index(TypeElement commandClass) {
+        NestingKind nesting = commandClass.getNestingKind();
+        if (nesting != NestingKind.TOP_LEVEL && nesting != NestingKind.MEMBER) {
+            return;
+        }
+
+        String binaryName = elements.getBinaryName(commandClass).toString();
+
+        AnnotationMirror autoCommand = getAnnotation(commandClass, AUTO_COMMAND);
+        AnnotationMirror autoSubCommand = getAnnotation(commandClass, AUTO_SUB_COMMAND);
+
+        String entry;
+        if (autoCommand != null) {
+            entry = String.join("\t", "command", binaryName, "", (String) getValue(autoCommand, "factoryMethod"),
+                    (String) getValue(autoCommand, "name"));
+        } else if (autoSubCommand != null) {
+            TypeMirror parent = (TypeMirror) getValue(autoSubCommand, "value");
+            if (parent.getKind() != TypeKind.DECLARED) {
+                return;
+            }
+
+            String parentName = elements.getBinaryName((TypeElement) types.asElement(parent)).toString();
+            entry = String.join("\t", "subcommand", binaryName, parentName,
+                    (String) getValue(autoSubCommand, "factoryMethod"), "");
+        } else {
+            return;
+        }
+
+        indexEntries.put(binaryName, entry);
+        indexedElements.add(commandClass);
+    }
+
+    private void writeIndex() {
+        Element[] originatingElements = indexedElements.toArray(new Element[0]);
+
+        try (Writer writer = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX, originatingElements)
+                .openWriter()) {
+            writer.write("# Generated by " + CommandProcessor.class.getName() + "\n");
+            for (String entry : indexEntries.values()) {
+                writer.write(entry);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "could not write " + INDEX + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Find the method which {@code ReflectionCommandCallback} would call, the first one annotated in the class or its
+     * superclasses.
+     */
+    private ExecutableElement findExecuteMethod(TypeElement commandClass) {
+        for (TypeElement cls = commandClass; cls != null; cls = getSuperclass(cls)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(cls.getEnclosedElements())) {
+                if (getAnnotation(method, EXECUTE_COMMAND) != null) {
+                    return method;
+                }
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * An expression creating an instance of an auto command, or null if it must be done reflectively.
+     */
+    private String getInstantiation(TypeElement commandClass, String packageName) {
+        AnnotationMirror annotation = getAnnotation(commandClass, AUTO_COMMAND);
+        if (annotation == null) {
+            annotation = getAnnotation(commandClass, AUTO_SUB_COMMAND);
+        }
+
+        if (annotation == null) {
+            return null;
+        }
+
+        String factoryMethodName = (String) getValue(annotation, "factoryMethod");
+        if (factoryMethodName.isEmpty()) {
+            return getConstructorInstantiation(commandClass);
+        } else {
+            return getFactoryInstantiation(commandClass, packageName, factoryMethodName);
+        }
+    }
+
+    private String getConstructorInstantiation(TypeElement commandClass) {
+        if (commandClass.getModifiers().contains(Modifier.ABSTRACT)) {
+            error(commandClass, commandClass + " was abstract");
+            return null;
+        }
+
+        boolean isInner = commandClass.getNestingKind() == NestingKind.MEMBER
+                && !commandClass.getModifiers().contains(Modifier.STATIC);
+
+        Optional<ExecutableElement> constructor = ElementFilter.constructorsIn(commandClass.getEnclosedElements())
+                .stream()
+                .filter(candidate -> candidate.getParameters().isEmpty())
+                .findAny();
+
+        if (isInner || constructor.isEmpty()) {
+            error(commandClass, "no zero argument constructor on " + commandClass);
+            return null;
+        }
+
+        if (constructor.get().getModifiers().contains(Modifier.PRIVATE)) {
+            return null;
+        }
+
+        return "new " + typeName(commandClass.asType()) + "()";
+    }
+
+    private String getFactoryInstantiation(TypeElement commandClass, String packageName, String factoryMethodName) {
+        ExecutableElement factoryMethod = null;
+
+        search:
+        for (TypeElement cls = commandClass; cls != null; cls = getSuperclass(cls)) {
+            for (ExecutableElement method : ElementFilter.methodsIn(cls.getEnclosedElements())) {
+                if (method.getSimpleName().contentEquals(factoryMethodName)) {
+                    factoryMethod = method;
+                    break search;
+                }
+            }
+        }
+
+        if (factoryMethod == null) {
+            error(commandClass, "no method named " + factoryMethodName + " in class " + commandClass);
+            return null;
+        }
+
+        TypeMirror contextType = elements.getTypeElement(AUTO_COMMAND_CONTEXT).asType();
+        List<? extends VariableElement> parameters = factoryMethod.getParameters();
+
+        if (!factoryMethod.getModifiers().contains(Modifier.STATIC) || parameters.size() != 1
+                || !types.isAssignable(contextType, types.erasure(parameters.get(0).asType()))) {
+            error(factoryMethod, "factory method " + factoryMethodName + " should be static and take a "
+                    + AUTO_COMMAND_CONTEXT + " as its sole parameter");
+            return null;
+        }
+
+        if (!isMethodAccessible(factoryMethod, packageName)) {
+            return null;
+        }
+
+        TypeElement declaringClass = (TypeElement) factoryMethod.getEnclosingElement();
+        return typeName(declaringClass.asType()) + "." + factoryMethodName + "(context)";
+    }
+
+    private String getExecuteMethodLookup(ExecutableElement method) {
+        TypeElement declaringClass = (TypeElement) method.getEnclosingElement();
+
+        StringBuilder lookup = new StringBuilder();
+        lookup.append(typeName(declaringClass.asType())).append(".class.getDeclaredMethod(\"")
+                .append(method.getSimpleName()).append("\"");
+
+        for (VariableElement parameter : method.getParameters()) {
+            lookup.append(", ").append(typeName(parameter.asType())).append(".class");
+        }
+
+        return lookup.append(")").toString();
+    }
+
+    private String getExecution(ExecutableElement method, String commandClassName) {
+        StringBuilder execution = new StringBuilder();
+
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            TypeElement declaringClass = (TypeElement) method.getEnclosingElement();
+            execution.append(typeName(declaringClass.asType()));
+        } else {
+            execution.append("((").append(commandClassName).append(") instance)");
+        }
+
+        execution.append(".").append(method.getSimpleName()).append("(");
+
+        List<? extends VariableElement> parameters = method.getParameters();
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) {
+                execution.append(", ");
+            }
+
+            execution.append(getArgument(parameters.get(i).asType(), i));
+        }
+
+        return execution.append(")").toString();
+    }
+
+    /**
+     * An expression reading an argument, decoding primitives as described by {@code CommandDispatcher}.
+     */
+    private String getArgument(TypeMirror type, int index) {
+        String primitive = "primitives[" + index + "]";
+
+        switch (type.getKind()) {
+            case BOOLEAN:
+                return primitive + " != 0";
+            case FLOAT:
+                return "java.lang.Float.intBitsToFloat((int) " + primitive + ")";
+            case DOUBLE:
+                return "java.lang.Double.longBitsToDouble(" + primitive + ")";
+            case LONG:
+                return primitive;
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case INT:
+                return "(" + typeName(type) + ") " + primitive;
+            default:
+                return "(" + typeName(type) + ") arguments[" + index + "]";
+        }
+    }
+
+    private static String render(String packageName, String dispatcherName, String commandClassName,
+                                 String executeMethodLookup, String instantiation, String execution) {
+        StringBuilder source = new StringBuilder();
+
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+
+        source.append("@javax.annotation.processing.Generated(\"").append(CommandProcessor.class.getName())
+                .append("\")\n");
+        source.append("@java.lang.SuppressWarnings({ \"rawtypes\", \"unchecked\" })\n");
+        source.append("public final class ").append(dispatcherName).append(" implements ").append(COMMAND_DISPATCHER)
+                .append(" {\n\n");
+
+        source.append("    private static final java.lang.reflect.Method EXECUTE_METHOD;\n\n");
+        source.append("    static {\n");
+        if (executeMethodLookup == null) {
+            source.append("        EXECUTE_METHOD = null;\n");
+        } else {
+            source.append("        try {\n");
+            source.append("            EXECUTE_METHOD = ").append(executeMethodLookup).append(";\n");
+            source.append("        } catch (java.lang.NoSuchMethodException e) {\n");
+            source.append("            throw new java.lang.IllegalStateException(e);\n");
+            source.append("        }\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public java.lang.Class<?> getCommandClass() {\n");
+        source.append("        return ").append(commandClassName).append(".class;\n");
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public java.lang.reflect.Method getExecuteMethod() {\n");
+        source.append("        return EXECUTE_METHOD;\n");
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public boolean isInstantiable() {\n");
+        source.append("        return ").append(instantiation != null).append(";\n");
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public java.lang.Object newInstance(").append(AUTO_COMMAND_CONTEXT)
+                .append(" context) throws java.lang.Throwable {\n");
+        if (instantiation == null) {
+            source.append("        throw new java.lang.UnsupportedOperationException();\n");
+        } else {
+            source.append("        return ").append(instantiation).append(";\n");
+        }
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public boolean isExecutable() {\n");
+        source.append("        return ").append(execution != null).append(";\n");
+        source.append("    }\n\n");
+
+        source.append("    @java.lang.Override\n");
+        source.append("    public void execute(java.lang.Object instance, java.lang.Object[] arguments, long[] primitives) "
+                + "throws java.lang.Throwable {\n");
+        if (execution == null) {
+            source.append("        throw new java.lang.UnsupportedOperationException();\n");
+        } else {
+            source.append("        ").append(execution).append(";\n");
+        }
+        source.append("    }\n");
+
+        source.append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * Whether a method can be called from generated code in the provided package.
+     */
+    private boolean isMethodAccessible(ExecutableElement method, String packageName) {
+        TypeElement declaringClass = (TypeElement) method.getEnclosingElement();
+        Set<Modifier> modifiers = method.getModifiers();
+
+        if (modifiers.contains(Modifier.PRIVATE) || !isAccessible(declaringClass, packageName)) {
+            return false;
+        }
+
+        return modifiers.contains(Modifier.PUBLIC) || isInPackage(declaringClass, packageName);
+    }
+
+    /**
+     * Whether the declaring class and parameter types of a method can be named from generated code in the provided
+     * package.
+     */
+    private boolean isSignatureAccessible(ExecutableElement method, String packageName) {
+        if (!isAccessible((TypeElement) method.getEnclosingElement(), packageName)) {
+            return false;
+        }
+
+        for (VariableElement parameter : method.getParameters()) {
+            if (!isAccessible(parameter.asType(), packageName)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isAccessible(TypeMirror type, String packageName) {
+        TypeMirror erasure = types.erasure(type);
+
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return isAccessible(((ArrayType) erasure).getComponentType(), packageName);
+            case DECLARED:
+                return isAccessible((TypeElement) types.asElement(erasure), packageName);
+            default:
+                return true;
+        }
+    }
+
+    private boolean isAccessible(TypeElement type, String packageName) {
+        for (Element element = type; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            Set<Modifier> modifiers = element.getModifiers();
+
+            if (modifiers.contains(Modifier.PRIVATE)) {
+                return false;
+            }
+
+            if (!modifiers.contains(Modifier.PUBLIC) && !isInPackage(element, packageName)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean isInPackage(Element element, String packageName) {
+        return elements.getPackageOf(element).getQualifiedName().contentEquals(packageName);
+    }
+
+    /**
+     * The erased name of a type as it would be written in source.
+     */
+    private String typeName(TypeMirror type) {
+        TypeMirror erasure = types.erasure(type);
+
+        switch (erasure.getKind()) {
+            case ARRAY:
+                return typeName(((ArrayType) erasure).getComponentType()) + "[]";
+            case DECLARED:
+                return ((TypeElement) types.asElement(erasure)).getQualifiedName().toString();
+            default:
+                return erasure.getKind().name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    private TypeElement getSuperclass(TypeElement cls) {
+        TypeMirror superclass = cls.getSuperclass();
+        return superclass.getKind() == TypeKind.DECLARED ? (TypeElement) types.asElement(superclass) : null;
+    }
+
+    private static AnnotationMirror getAnnotation(Element element, String annotationName) {
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            Element annotationType = annotation.getAnnotationType().asElement();
+
+            if (((TypeElement) annotationType).getQualifiedName().contentEquals(annotationName)) {
+                return annotation;
+            }
+        }
+
+        return null;
+    }
+
+    private Object getValue(AnnotationMirror annotation, String name) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry :
+                elements.getElementValuesWithDefaults(annotation).entrySet()) {
+            if (entry.getKey().getSimpleName().contentEquals(name)) {
+                return entry.getValue().getValue();
+            }
+        }
+
+        throw new IllegalArgumentException(annotation + " has no value named " + name);
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,210 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Scratch storage for the values produced while parsing a single command invocation, including the memo tables used by
+ * {@link ArgumentMatcher}.
+ *
+ * Buffers are confined to a thread and reused between invocations, see {@link Pool}. A buffer must be cleared before it
+ * is reused so that it doesn't keep parsed values reachable.
+ *
+ * Values from parsers with a {@link PrimitiveType} are stored unboxed, in {@link #primitiveSlots} rather than
+ * {@link #slots} and in {@link #variadicPrimitives} rather than {@link #variadicValues}.
+ */
+/* package-private */ final class ArgumentBuffer {
+
+    private static final int INITIAL_VARIADIC_CAPACITY = 8;
+
+    /* package-private */ static final byte UNPARSED = 0;
+    /* package-private */ static final byte PARSED = 1;
+    /* package-private */ static final byte FAILED = 2;
+
+    /* package-private */ final Object[] slots;
+    /* package-private */ final long[] primitiveSlots;
+
+    // The type of each slot which holds an unboxed value, or null for slots holding objects
+    /* package-private */ final PrimitiveType[] slotTypes;
+
+    /* package-private */ final boolean variadic;
+    /* package-private */ final PrimitiveType variadicType;
+
+    /* package-private */ Object[] variadicValues = new Object[INITIAL_VARIADIC_CAPACITY];
+    /* package-private */ long[] variadicPrimitives = new long[INITIAL_VARIADIC_CAPACITY];
+    /* package-private */ int variadicCount = 0;
+
+    // When the callback parses the variadic values itself, the parser and where its arguments start
+    /* package-private */ final ArgumentParser<?> lazyVariadicParser;
+    /* package-private */ ArgumentWindow lazyArgumentStrings = null;
+    /* package-private */ int variadicStart = 0;
+
+    // Parse results indexed by parser and argument index, holding either the value or the ArgumentParseException
+    /* package-private */ final byte[] parseStates;
+    /* package-private */ final Object[] parseResults;
+    /* package-private */ final long[] primitiveParseResults;
+
+    // Parse results of the variadic parser indexed by argument index
+    /* package-private */ byte[] variadicParseStates = new byte[INITIAL_VARIADIC_CAPACITY];
+    /* package-private */ Object[] variadicParseResults = new Object[INITIAL_VARIADIC_CAPACITY];
+    /* package-private */ long[] variadicPrimitiveParseResults = new long[INITIAL_VARIADIC_CAPACITY];
+
+    // Pairs of parser and argument index from which no assignment of the remaining arguments exists
+    /* package-private */ final boolean[] deadStates;
+
+    /* package-private */ int failureIndex = -1;
+    /* package-private */ ArgumentMatcher.FailureKind failureKind = null;
+    /* package-private */ ArgumentParseException failureCause = null;
+
+    private int argumentCount = 0;
+    private boolean inUse = false;
+
+    /* package-private */ ArgumentBuffer(int parserCount, PrimitiveType[] slotTypes, boolean variadic,
+                                         PrimitiveType variadicType, ArgumentParser<?> lazyVariadicParser) {
+        this.slotTypes = slotTypes;
+        this.variadic = variadic;
+        this.variadicType = variadicType;
+        this.lazyVariadicParser = lazyVariadicParser;
+
+        slots = new Object[slotTypes.length];
+        primitiveSlots = new long[slotTypes.length];
+
+        parseStates = new byte[parserCount * parserCount];
+        parseResults = new Object[parserCount * parserCount];
+        primitiveParseResults = new long[parserCount * parserCount];
+        deadStates = new boolean[(parserCount + 1) * (parserCount + 1)];
+    }
+
+    /**
+     * Create a buffer holding already parsed values laid out for a {@link ReflectionCommandCallback}, with slot zero left
+     * for the context.
+     */
+    /* package-private */ static ArgumentBuffer of(List<Object> argumentValues, List<Object> variadicArgumentValues) {
+        boolean variadic = variadicArgumentValues != null;
+        int slotCount = 1 + argumentValues.size() + (variadic ? 1 : 0);
+
+        ArgumentBuffer buffer = new ArgumentBuffer(0, new PrimitiveType[slotCount], variadic, null, null);
+        for (int i = 0; i < argumentValues.size(); i++) {
+            buffer.slots[i + 1] = argumentValues.get(i);
+        }
+
+        if (variadic) {
+            buffer.variadicValues = variadicArgumentValues.toArray();
+            buffer.variadicCount = buffer.variadicValues.length;
+        }
+
+        return buffer;
+    }
+
+    /**
+     * Prepare the memo tables for matching the given number of arguments.
+     */
+    /* package-private */ void prepare(int argumentCount) {
+        this.argumentCount = argumentCount;
+
+        if (variadicParseStates.length < argumentCount) {
+            variadicParseStates = new byte[argumentCount];
+            variadicParseResults = new Object[argumentCount];
+            variadicPrimitiveParseResults = new long[argumentCount];
+        }
+    }
+
+    /* package-private */ void recordFailure(int argumentIndex, ArgumentMatcher.FailureKind kind,
+                                          ArgumentParseException cause) {
+        // The failure which made it furthest through the arguments is usually the most helpful one to show
+        if (argumentIndex > failureIndex) {
+            failureIndex = argumentIndex;
+            failureKind = kind;
+            failureCause = cause;
+        }
+    }
+
+    /**
+     * Leave the remaining arguments for the callback to parse through {@link VariadicArguments}.
+     */
+    /* package-private */ void deferVariadic(ArgumentWindow argumentStrings, int start) {
+        lazyArgumentStrings = argumentStrings;
+        variadicStart = start;
+    }
+
+    /* package-private */ void addVariadic(Object value) {
+        if (variadicCount == variadicValues.length) {
+            variadicValues = Arrays.copyOf(variadicValues, variadicValues.length * 2);
+        }
+
+        variadicValues[variadicCount++] = value;
+    }
+
+    /* package-private */ void addVariadicPrimitive(long value) {
+        if (variadicCount == variadicPrimitives.length) {
+            variadicPrimitives = Arrays.copyOf(variadicPrimitives, variadicPrimitives.length * 2);
+        }
+
+        variadicPrimitives[variadicCount++] = value;
+    }
+
+    /**
+     * The value in a slot, boxing it if it is stored unboxed.
+     */
+    /* package-private */ Object getValue(int slot) {
+        PrimitiveType type = slotTypes[slot];
+        return type != null ? type.box(primitiveSlots[slot]) : slots[slot];
+    }
+
+    /* package-private */ Object getVariadicValue(int index) {
+        return variadicType != null ? variadicType.box(variadicPrimitives[index]) : variadicValues[index];
+    }
+
+    /* package-private */ void clear() {
+        Arrays.fill(slots, null);
+        if (variadicType == null) {
+            Arrays.fill(variadicValues, 0, variadicCount, null);
+        }
+
+        variadicCount = 0;
+        lazyArgumentStrings = null;
+        variadicStart = 0;
+
+        Arrays.fill(parseStates, UNPARSED);
+        Arrays.fill(parseResults, null);
+        Arrays.fill(deadStates, false);
+
+        Arrays.fill(variadicParseStates, 0, argumentCount, UNPARSED);
+        Arrays.fill(variadicParseResults, 0, argumentCount, null);
+        argumentCount = 0;
+
+        failureIndex = -1;
+        failureKind = null;
+        failureCause = null;
+    }
+
+    /**
+     * Hands out one buffer per thread, falling back to a fresh buffer when a command is dispatched reentrantly from
+     * within another command on the same thread.
+     */
+    /* package-private */ static final class Pool {
+
+        private final ParsePlan plan;
+        private final ThreadLocal<ArgumentBuffer> buffers;
+
+        /* package-private */ Pool(ParsePlan plan) {
+            this.plan = plan;
+            buffers = ThreadLocal.withInitial(plan::createBuffer);
+        }
+
+        /* package-private */ ArgumentBuffer acquire() {
+            ArgumentBuffer buffer = buffers.get();
+            if (buffer.inUse) {
+                buffer = plan.createBuffer();
+            }
+
+            buffer.inUse = true;
+            return buffer;
+        }
+
+        /* package-private */ void release(ArgumentBuffer buffer) {
+            buffer.clear();
+            buffer.inUse = false;
+        }
+    }
+}
@@ -1,9 +1,14 @@
 package io.github.llewvallis.commandbuilder;
 
+import lombok.RequiredArgsConstructor;
 import lombok.experimental.UtilityClass;
 import lombok.extern.java.Log;
 
 import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.WrongMethodTypeException;
 import java.lang.reflect.*;
 import java.util.Optional;
 
@@ -14,14 +19,14 @@ import java.util.Optional;
     public void infer(CommandBuilder builder, Object instance, DefaultInferenceProvider defaultInferenceProvider) {
         Class<?> cls = instance.getClass();
 
-        Method method = getMethodByAnnotation(ExecuteCommand.class, cls, cls);
+        Method method = CommandDispatchers.getExecuteMethod(cls);
         Parameter[] parameters = method.getParameters();
 
         for (int i = 1; i < parameters.length; i++) {
             Parameter parameter = parameters[i];
             ArgumentParser<?> parser = getParserForParameter(instance, method, parameter, defaultInferenceProvider);
 
-            if (parameter.isVarArgs()) {
+            if (parameter.isVarArgs() || isLazyVariadic(parameters, i)) {
                 builder.variadicArgument(parser);
             } else {
                 builder.argument(parser);
@@ -29,6 +34,10 @@ import java.util.Optional;
         }
     }
 
+    private boolean isLazyVariadic(Parameter[] parameters, int index) {
+        return index == parameters.length - 1 && parameters[index].getType() == VariadicArguments.class;
+    }
+
     public Method getMethodByAnnotation(Class<? extends Annotation> annotation,
                                                               Class<?> currentTarget, Class<?> originalTarget) {
         Method result = null;
@@ -86,7 +95,8 @@ import java.util.Optional;
 
     private ArgumentParser<?> getParserForParameter(Object instance, Method method, Parameter parameter,
                                                     DefaultInferenceProvider defaultInferenceProvider) {
-        Optional<? extends ArgumentParser<?>> defaultParser = defaultInferenceProvider.getForType(parameter.getType());
+        Optional<? extends ArgumentParser<?>> defaultParser = defaultInferenceProvider.getForType(
+                getInferredType(parameter));
         ArgumentParser<?> previousParser = null;
 
         for (Annotation annotation : parameter.getDeclaredAnnotations()) {
@@ -117,42 +127,98 @@ import java.util.Optional;
         return previousParser;
     }
 
+    /**
+     * The type whose default inference is used for a parameter, which is the element type of {@link VariadicArguments}.
+     */
+    private Class<?> getInferredType(Parameter parameter) {
+        if (parameter.getType() == VariadicArguments.class) {
+            Type type = parameter.getParameterizedType();
+
+            if (type instanceof ParameterizedType) {
+                Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+                if (elementType instanceof Class) {
+                    return (Class<?>) elementType;
+                }
+            }
+
+            return Object.class;
+        }
+
+        return parameter.getType();
+    }
+
     private ArgumentParser<?> getParserFromAnnotation(ArgumentInferenceContext<?> ctx, ArgumentParser<?> previous) {
-        ParserAnnotation metaAnnotation = ctx.getAnnotation().annotationType().getAnnotation(ParserAnnotation.class);
+        ParserFactory factory = parserFactories.get(ctx.getAnnotation().annotationType());
 
-        Class<?> factoryClass = metaAnnotation.value();
-        String factoryMethodName = metaAnnotation.factoryMethodName();
-        Method factoryMethod = ReflectionUtil.getMethodByName(factoryMethodName, factoryClass, factoryClass);
-        factoryMethod.setAccessible(true);
+        Object parser;
+        try {
+            if (factory.transformsPrevious) {
+                parser = (Object) factory.handle.invokeExact(ctx, previous);
+            } else {
+                parser = (Object) factory.handle.invokeExact(ctx);
+            }
+        } catch (Throwable e) {
+            throw new ReflectionCommandCallbackException("method " + factory.method + " threw an unhandled exception", e);
+        }
 
-        if (!factoryMethod.isAnnotationPresent(ArgumentInferenceFactory.class)) {
-            log.warning("Argument parser factory method " + factoryMethod + " was not annotated with " + ArgumentInferenceFactory.class);
+        if (parser == null) {
+            throw new ReflectionCommandCallbackException("got null from " + factory.method);
+        } else if (!(parser instanceof ArgumentParser)) {
+            throw new ReflectionCommandCallbackException("method " + factory.method + " did not return an argument parser");
         }
 
-        Object[] invocationArgs;
-        if (metaAnnotation.transformsPrevious()) {
-            invocationArgs = new Object[] { ctx, previous };
-        } else {
-            invocationArgs = new Object[] { ctx };
+        return (ArgumentParser<?>) parser;
+    }
+
+    /**
+     * The factory method of each {@link ParserAnnotation}, resolved the first time the annotation is used.
+     */
+    private final ClassValue<ParserFactory> parserFactories = new ClassValue<>() {
+        @Override
+        protected ParserFactory computeValue(Class<?> annotationType) {
+            return ParserFactory.resolve(annotationType.getAnnotation(ParserAnnotation.class));
         }
+    };
 
-        try {
-            ArgumentParser<?> parser = (ArgumentParser<?>) factoryMethod.invoke(null, invocationArgs);
-            if (parser == null) {
-                throw new ReflectionCommandCallbackException("got null from " + factoryMethod);
+    @RequiredArgsConstructor
+    private static final class ParserFactory {
+
+        private final Method method;
+        private final MethodHandle handle;
+        private final boolean transformsPrevious;
+
+        private static ParserFactory resolve(ParserAnnotation metaAnnotation) {
+            Class<?> factoryClass = metaAnnotation.value();
+            String factoryMethodName = metaAnnotation.factoryMethodName();
+            Method factoryMethod = ReflectionUtil.getMethodByName(factoryMethodName, factoryClass, factoryClass);
+
+            if (!factoryMethod.isAnnotationPresent(ArgumentInferenceFactory.class)) {
+                log.warning("Argument parser factory method " + factoryMethod + " was not annotated with " + ArgumentInferenceFactory.class);
+            }
+
+            if (!Modifier.isStatic(factoryMethod.getModifiers())) {
+                throw new ReflectionCommandCallbackException("method " + factoryMethod + " was not static");
+            }
+
+            MethodHandle handle;
+            try {
+                factoryMethod.setAccessible(true);
+                handle = MethodHandles.lookup().unreflect(factoryMethod).asFixedArity();
+            } catch (IllegalAccessException e) {
+                throw new RuntimeException(e);
+            }
+
+            MethodType type = metaAnnotation.transformsPrevious()
+                    ? MethodType.methodType(Object.class, ArgumentInferenceContext.class, ArgumentParser.class)
+                    : MethodType.methodType(Object.class, ArgumentInferenceContext.class);
+
+            try {
+                handle = handle.asType(type);
+            } catch (WrongMethodTypeException e) {
+                throw new ReflectionCommandCallbackException("method " + factoryMethod + " did not have the expected signature");
             }
 
-            return parser;
-        } catch (InvocationTargetException e) {
-            throw new ReflectionCommandCallbackException("method " + factoryMethod + " threw an unhandled exception", e.getCause());
-        } catch (IllegalArgumentException e) {
-            throw new ReflectionCommandCallbackException("method " + factoryMethod + " did not have the expected signature");
-        } catch (NullPointerException e) {
-            throw new ReflectionCommandCallbackException("method " + factoryMethod + " was not static");
-        } catch (ClassCastException e) {
-            throw new ReflectionCommandCallbackException("method " + factoryMethod + " did not return an argument parser");
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(e);
+            return new ParserFactory(factoryMethod, handle, metaAnnotation.transformsPrevious());
         }
     }
 }
@@ -0,0 +1,172 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Assigns argument strings to the parsers of a {@link ParsePlan}, writing the parsed values into an
+ * {@link ArgumentBuffer}.
+ *
+ * Each parser either consumes the next argument or, if it is optional, is skipped. Consuming is always tried first, so a
+ * command which parses greedily is matched exactly as it would be greedily, but when that fails other ways of skipping
+ * optional arguments are searched as well. Each pair of parser and argument index is parsed at most once, as is each
+ * argument given to the variadic parser, no matter how much backtracking takes place.
+ *
+ * Required arguments whose parser has a {@link PrimitiveType} are parsed and stored without boxing.
+ *
+ * If the plan's variadic values are lazy, the arguments left for the variadic parser are accepted without being parsed,
+ * so the first assignment of the other arguments which leaves a valid position for them is chosen.
+ */
+@RequiredArgsConstructor
+/* package-private */ final class ArgumentMatcher {
+
+    /* package-private */ enum FailureKind {
+        NOT_ENOUGH_ARGUMENTS,
+        TOO_MANY_ARGUMENTS,
+        INVALID_ARGUMENT
+    }
+
+    private final ParsePlan plan;
+
+    /**
+     * Match the arguments, leaving the values of any skipped optional parsers as null.
+     *
+     * @throws CommandParseException describing the failure which made it furthest through the arguments
+     */
+    /* package-private */ void match(ArgumentWindow argumentStrings, CommandContext context, ArgumentBuffer buffer)
+            throws CommandParseException {
+        buffer.prepare(argumentStrings.size());
+
+        if (!matchFrom(0, 0, argumentStrings, context, buffer)) {
+            throw createFailure(argumentStrings, buffer);
+        }
+    }
+
+    private boolean matchFrom(int parserIndex, int argumentIndex, ArgumentWindow argumentStrings,
+                              CommandContext context, ArgumentBuffer buffer) {
+        int parserCount = plan.getParserCount();
+        if (parserIndex == parserCount) {
+            return matchVariadic(argumentIndex, argumentStrings, context, buffer);
+        }
+
+        // Each parser consumes at most one argument, so the argument index never exceeds the parser index
+        int stateIndex = parserIndex * (parserCount + 1) + argumentIndex;
+        if (buffer.deadStates[stateIndex]) {
+            return false;
+        }
+
+        boolean optional = plan.isOptional(parserIndex);
+        int slot = plan.getFirstArgumentSlot() + parserIndex;
+
+        if (argumentIndex < argumentStrings.size()) {
+            int resultIndex = parserIndex * parserCount + argumentIndex;
+            PrimitiveType primitiveType = plan.getPrimitiveType(parserIndex);
+            parse(plan.getParser(parserIndex), primitiveType, resultIndex, argumentIndex, argumentStrings, context,
+                    buffer.parseStates, buffer.parseResults, buffer.primitiveParseResults);
+
+            if (buffer.parseStates[resultIndex] == ArgumentBuffer.PARSED) {
+                if (primitiveType != null) {
+                    buffer.primitiveSlots[slot] = buffer.primitiveParseResults[resultIndex];
+                } else {
+                    buffer.slots[slot] = buffer.parseResults[resultIndex];
+                }
+
+                if (matchFrom(parserIndex + 1, argumentIndex + 1, argumentStrings, context, buffer)) {
+                    return true;
+                }
+            } else if (!optional) {
+                buffer.recordFailure(argumentIndex, FailureKind.INVALID_ARGUMENT,
+                        (ArgumentParseException) buffer.parseResults[resultIndex]);
+            }
+        } else if (!optional) {
+            buffer.recordFailure(argumentIndex, FailureKind.NOT_ENOUGH_ARGUMENTS, null);
+        }
+
+        if (optional) {
+            buffer.slots[slot] = null;
+
+            if (matchFrom(parserIndex + 1, argumentIndex, argumentStrings, context, buffer)) {
+                return true;
+            }
+        }
+
+        buffer.deadStates[stateIndex] = true;
+        return false;
+    }
+
+    private boolean matchVariadic(int argumentIndex, ArgumentWindow argumentStrings, CommandContext context,
+                                  ArgumentBuffer buffer) {
+        if (argumentIndex == argumentStrings.size()) {
+            return true;
+        }
+
+        if (!plan.isVariadic()) {
+            buffer.recordFailure(argumentIndex, FailureKind.TOO_MANY_ARGUMENTS, null);
+            return false;
+        }
+
+        if (plan.isLazyVariadic()) {
+            buffer.deferVariadic(argumentStrings, argumentIndex);
+            return true;
+        }
+
+        ArgumentParser<?> variadicParser = plan.getVariadicParser();
+        PrimitiveType primitiveType = plan.getVariadicPrimitiveType();
+
+        for (int i = argumentIndex; i < argumentStrings.size(); i++) {
+            parse(variadicParser, primitiveType, i, i, argumentStrings, context, buffer.variadicParseStates,
+                    buffer.variadicParseResults, buffer.variadicPrimitiveParseResults);
+
+            if (buffer.variadicParseStates[i] != ArgumentBuffer.PARSED) {
+                buffer.recordFailure(i, FailureKind.INVALID_ARGUMENT,
+                        (ArgumentParseException) buffer.variadicParseResults[i]);
+                return false;
+            }
+        }
+
+        for (int i = argumentIndex; i < argumentStrings.size(); i++) {
+            if (primitiveType != null) {
+                buffer.addVariadicPrimitive(buffer.variadicPrimitiveParseResults[i]);
+            } else {
+                buffer.addVariadic(buffer.variadicParseResults[i]);
+            }
+        }
+
+        return true;
+    }
+
+    private static void parse(ArgumentParser<?> parser, PrimitiveType primitiveType, int resultIndex, int argumentIndex,
+                              ArgumentWindow argumentStrings, CommandContext context, byte[] states, Object[] results,
+                              long[] primitiveResults) {
+        if (states[resultIndex] != ArgumentBuffer.UNPARSED) {
+            return;
+        }
+
+        try {
+            String argumentString = argumentStrings.get(argumentIndex);
+
+            if (primitiveType != null) {
+                primitiveResults[resultIndex] = primitiveType.parse(parser, argumentString, argumentIndex, context);
+            } else {
+                results[resultIndex] = parser.parse(argumentString, argumentIndex, context);
+            }
+
+            states[resultIndex] = ArgumentBuffer.PARSED;
+        } catch (ArgumentParseException e) {
+            results[resultIndex] = e;
+            states[resultIndex] = ArgumentBuffer.FAILED;
+        }
+    }
+
+    private static CommandParseException createFailure(ArgumentWindow argumentStrings, ArgumentBuffer buffer) {
+        switch (buffer.failureKind) {
+            case NOT_ENOUGH_ARGUMENTS:
+                return new CommandParseException("not enough arguments");
+            case TOO_MANY_ARGUMENTS:
+                return new CommandParseException("too many arguments");
+            default:
+                String argumentString = argumentStrings.get(buffer.failureIndex);
+                return new CommandParseException("invalid argument: " + argumentString + ", " +
+                        buffer.failureCause.getMessage());
+        }
+    }
+}
@@ -7,6 +7,7 @@ import io.github.llewvallis.commandbuilder.arguments.TransformArgument;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -34,6 +35,39 @@ public interface ArgumentParser<T> {
      */
     Set<String> complete(List<Object> parsedArguments, String currentArgument, int position, CommandContext context);
 
+    /**
+     * Provides tab completions like {@link #complete(List, String, int, CommandContext)}, but may do so
+     * asynchronously.
+     *
+     * This is used when completions are requested through {@link AsyncTabCompleter}. Parsers which fetch completions
+     * from a slow source, such as a database, should override this rather than block. The synchronous method is still
+     * used when completions are requested through a plain Bukkit tab completer. By default this completes immediately
+     * with the result of the synchronous method.
+     */
+    default CompletableFuture<Set<String>> completeAsync(List<Object> parsedArguments, String currentArgument,
+                                                         int position, CommandContext context) {
+        return CompletableFuture.completedFuture(complete(parsedArguments, currentArgument, position, context));
+    }
+
+    /**
+     * Offer possible values for this argument to a sink which keeps only the most relevant tab completions.
+     *
+     * This is used in preference to {@link #complete(List, String, int, CommandContext)} when completing
+     * synchronously. Parsers with many candidates can override it to skip candidates which don't start with
+     * {@link CompletionSink#getPrefix()}, and to score candidates by relevance, without building a set of every
+     * candidate. By default this offers each result of {@link #complete(List, String, int, CommandContext)}.
+     *
+     * @param parsedArguments the parsed values of all prior arguments
+     * @param currentArgument the unfinished value of the argument being completed
+     * @param position the index of the argument in relation to the entire command's arguments
+     */
+    default void completeInto(List<Object> parsedArguments, String currentArgument, int position,
+                              CommandContext context, CompletionSink sink) {
+        for (String completion : complete(parsedArguments, currentArgument, position, context)) {
+            sink.accept(completion);
+        }
+    }
+
     /**
      * Whether or not the argument can be omitted.
      *
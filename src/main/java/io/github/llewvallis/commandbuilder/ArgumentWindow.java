@@ -0,0 +1,57 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * A read-only view of the arguments of a command from some offset onwards, backed by the array Bukkit passed in.
+ *
+ * Composite commands hand each subcommand a window which skips the subcommand's label, so a command is dispatched
+ * through any number of nested composite commands without copying its arguments.
+ */
+/* package-private */ final class ArgumentWindow extends AbstractList<String> implements RandomAccess {
+
+    private final String[] arguments;
+    private final int offset;
+
+    private ArgumentWindow(String[] arguments, int offset) {
+        this.arguments = arguments;
+        this.offset = offset;
+    }
+
+    /* package-private */ static ArgumentWindow of(String[] arguments) {
+        return new ArgumentWindow(arguments, 0);
+    }
+
+    /**
+     * A window of the arguments after the first argument of this one.
+     */
+    /* package-private */ ArgumentWindow shift() {
+        if (isEmpty()) {
+            throw new IllegalStateException("cannot shift an empty argument window");
+        }
+
+        return new ArgumentWindow(arguments, offset + 1);
+    }
+
+    @Override
+    public String get(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for " + size() + " arguments");
+        }
+
+        return arguments[offset + index];
+    }
+
+    @Override
+    public int size() {
+        return arguments.length - offset;
+    }
+
+    @Override
+    public String[] toArray() {
+        String[] copy = new String[size()];
+        System.arraycopy(arguments, offset, copy, 0, copy.length);
+        return copy;
+    }
+}
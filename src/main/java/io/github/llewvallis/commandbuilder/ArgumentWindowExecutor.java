@@ -0,0 +1,56 @@
+package io.github.llewvallis.commandbuilder;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * An executor built by this library which can take its arguments as an {@link ArgumentWindow} rather than an array,
+ * so composite commands can pass arguments on to their subcommands without copying them.
+ */
+/* package-private */ interface ArgumentWindowExecutor extends TabExecutor, AsyncTabCompleter {
+
+    /**
+     * Run the command.
+     *
+     * @param path the path of the command when it is run as a subcommand while {@link CommandMetrics} are installed,
+     *             or null to label its metrics with the name of the command
+     */
+    boolean onCommand(CommandSender sender, Command command, String alias, ArgumentWindow arguments, CommandPath path);
+
+    List<String> onTabComplete(CommandSender sender, Command command, String alias, ArgumentWindow arguments);
+
+    /**
+     * Request completions asynchronously, handing slow work to the executor configured on this executor's builder, or
+     * to the inherited executor if none was configured.
+     *
+     * @param inheritedExecutor the executor of the composite command this is a subcommand of, or null
+     */
+    CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                       ArgumentWindow arguments, Executor inheritedExecutor);
+
+    /**
+     * Create any executors this one would otherwise create when it is first used.
+     */
+    default void preload() { }
+
+    @Override
+    default boolean onCommand(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+        return onCommand(sender, command, alias, ArgumentWindow.of(argumentStrings), null);
+    }
+
+    @Override
+    default List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+        return onTabComplete(sender, command, alias, ArgumentWindow.of(argumentStrings));
+    }
+
+    @Override
+    default CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                               String[] argumentStrings) {
+        return onTabCompleteAsync(sender, command, alias, ArgumentWindow.of(argumentStrings), null);
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.command.CommandSender;
+
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Tracks the command callbacks running asynchronously on behalf of each sender, so that they can be cancelled when
+ * the sender disconnects.
+ */
+@UtilityClass
+/* package-private */ class AsyncCallbacks {
+
+    private final Map<CommandSender, Set<Future<?>>> inFlight = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * Run a task on an executor, tracking it until it completes.
+     *
+     * @return a future of the task's result, which is cancelled if the task is
+     * @throws java.util.concurrent.RejectedExecutionException if the executor rejected the task
+     */
+    public <T> CompletableFuture<T> submit(Executor executor, CommandSender sender, Callable<T> callable) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        FutureTask<T> task = new FutureTask<>(callable) {
+            @Override
+            protected void set(T value) {
+                super.set(value);
+                result.complete(value);
+            }
+
+            @Override
+            protected void setException(Throwable cause) {
+                super.setException(cause);
+                result.completeExceptionally(cause);
+            }
+
+            @Override
+            protected void done() {
+                untrack(sender, this);
+
+                if (isCancelled()) {
+                    result.cancel(false);
+                }
+            }
+        };
+
+        track(sender, task);
+
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            untrack(sender, task);
+            throw e;
+        }
+
+        return result;
+    }
+
+    /**
+     * Cancel every callback running on behalf of a sender, interrupting those which have started.
+     */
+    public void cancel(CommandSender sender) {
+        Set<Future<?>> tasks = inFlight.remove(sender);
+        if (tasks == null) {
+            return;
+        }
+
+        synchronized (tasks) {
+            for (Future<?> task : tasks) {
+                task.cancel(true);
+            }
+        }
+    }
+
+    private void track(CommandSender sender, Future<?> task) {
+        // Added under the same lock untrack removes empty sets with, so a task is never added to a discarded set
+        synchronized (inFlight) {
+            inFlight.computeIfAbsent(sender, k -> Collections.synchronizedSet(new HashSet<>())).add(task);
+        }
+    }
+
+    private void untrack(CommandSender sender, Future<?> task) {
+        synchronized (inFlight) {
+            Set<Future<?>> tasks = inFlight.get(sender);
+            if (tasks != null) {
+                tasks.remove(task);
+
+                if (tasks.isEmpty()) {
+                    inFlight.remove(sender);
+                }
+            }
+        }
+    }
+}
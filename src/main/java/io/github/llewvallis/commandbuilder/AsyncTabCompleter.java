@@ -0,0 +1,31 @@
+package io.github.llewvallis.commandbuilder;
+
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabCompleter;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * A {@link TabCompleter} which can also assemble its completions asynchronously.
+ *
+ * Executors created by {@link CommandBuilder} and {@link CompositeCommandBuilder} implement this. Subcommands are
+ * routed and the earlier arguments parsed on the requesting thread, and then the last argument is completed with
+ * {@link ArgumentParser#completeAsync(java.util.List, String, int, CommandContext)} on the executor configured on the
+ * builder, so that slow completion sources don't stall the main thread.
+ *
+ * Bukkit itself only ever calls {@link #onTabComplete(CommandSender, Command, String, String[])}, and this library
+ * doesn't listen for any asynchronous completion event, such as Paper's {@code AsyncTabCompleteEvent}. Plugins which
+ * want asynchronous completions must call {@link #onTabCompleteAsync} themselves, for example from a listener for
+ * such an event, and must call it from a thread on which the Bukkit API may be used.
+ */
+public interface AsyncTabCompleter extends TabCompleter {
+
+    /**
+     * Asynchronously request tab completions, taking the same arguments as
+     * {@link #onTabComplete(CommandSender, Command, String, String[])}.
+     */
+    CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                       String[] argumentStrings);
+}
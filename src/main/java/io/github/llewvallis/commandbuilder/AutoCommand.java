@@ -22,4 +22,13 @@ public @interface AutoCommand {
      * {@link CompositeTopLevelCommand} and takes a {@link AutoCommandContext} as its sole parameter.
      */
     String factoryMethod() default "";
+
+    /**
+     * The name of the command, which must be the same as the name the instance returns.
+     *
+     * If this is provided, the command is registered under this name and is only instantiated and built when it is
+     * first run or tab completed. Classes found through {@link AutoCommandBuilder#indexSource()} or
+     * {@link AutoCommandBuilder#jarSource(java.io.File, String)} are not loaded until then either.
+     */
+    String name() default "";
 }
@@ -1,19 +1,28 @@
 package io.github.llewvallis.commandbuilder;
 
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.java.Log;
 import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
 import org.bukkit.command.TabExecutor;
 import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.File;
-import java.lang.annotation.Annotation;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.logging.Level;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -27,11 +36,19 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class AutoCommandBuilder {
 
+    private static final int WARM_UP_DEPTH = 2;
+    private static final int WARM_UP_BREADTH = 4;
+
     private final Plugin plugin;
-    private final Set<AutoCommandSource> sources = new HashSet<>();
+    private final Set<AutoCommandSource> sources = new LinkedHashSet<>();
+
+    private final Map<String, Candidate> candidates = new LinkedHashMap<>();
+    private final Map<String, List<Candidate>> subCommandMap = new ConcurrentHashMap<>();
+    private int parallelism = 1;
+    private Executor preloadExecutor = null;
+    private int warmUpIterations = 0;
 
-    private Set<Class<?>> classes = null;
-    private final Map<Class<?>, Set<Class<?>>> subCommandMap = new HashMap<>();
+    private final Map<PluginCommand, TabExecutor> registeredCommands = new LinkedHashMap<>();
     private boolean isUsed = false;
 
     /**
@@ -49,58 +66,377 @@ public class AutoCommandBuilder {
      * This is most commonly used in conjunction with the (protected) {@code getFile} method of {@link JavaPlugin}. The
      * provided regular expression will be applied against the full class name of each candidate, and if no match is
      * found within the class name, it will be discarded.
+     *
+     * What is found is cached in the plugin's data folder, so the JAR is only scanned again once it changes.
      */
     public AutoCommandBuilder jarSource(File file, String classNamePattern) {
-        return source(new JarAutoCommandSource(file, Pattern.compile(classNamePattern)));
+        ScanCache cache = ScanCache.in(plugin.getDataFolder(), file, classNamePattern);
+        return source(new JarAutoCommandSource(file, Pattern.compile(classNamePattern), cache,
+                JarAutoCommandSource.class.getClassLoader()));
+    }
+
+    /**
+     * Use the index written by the {@code command-builder-processor} annotation processor as a source of classes.
+     *
+     * The index lists every auto command and auto subcommand compiled with the processor, so nothing needs to be
+     * scanned. Like {@link #jarSource(File, String)}, classes are only loaded once they are needed.
+     */
+    public AutoCommandBuilder indexSource() {
+        return source(new IndexAutoCommandSource(plugin.getClass().getClassLoader()));
+    }
+
+    /**
+     * Set how many threads commands are created on during {@link #register()}, which defaults to one.
+     *
+     * A parallelism of one creates every command on the thread calling {@link #register()}. With more, the
+     * constructors, factory methods and {@code configure} methods of commands and subcommands, along with argument
+     * inference and the parser factories it calls, run concurrently on worker threads. They must then be thread safe
+     * and must not use the Bukkit API, which may only be used from the main thread.
+     */
+    public AutoCommandBuilder parallelism(int parallelism) {
+        assertNotUsed();
+
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be at least one");
+        }
+
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * Create every command and subcommand executor using the provided executor once the commands are registered, rather
+     * than when each is first used.
+     *
+     * This includes the commands whose loading is deferred, so it is most useful with an asynchronous executor such as
+     * {@link TaskExecutors#bukkitAsync(Plugin)}. The constructors, factory methods and {@code configure} methods of
+     * those commands and their subcommands, along with argument inference and the parser factories it calls, then run
+     * on the executor. With an asynchronous executor they must be thread safe and must not use the Bukkit API, which
+     * may only be used from the main thread. The usage messages of composite commands are still set on the main thread.
+     */
+    public AutoCommandBuilder preload(Executor executor) {
+        assertNotUsed();
+        preloadExecutor = executor;
+        return this;
+    }
+
+    /**
+     * Tab complete each registered command a number of times on the main thread once it has been preloaded, so that
+     * the JIT has compiled the code paths of a command before a player first uses it.
+     *
+     * The completions are made by the console, starting with an empty argument and following the first few
+     * suggestions a couple of arguments deep.
+     */
+    public AutoCommandBuilder warmUp(int iterations) {
+        assertNotUsed();
+
+        if (iterations < 0) {
+            throw new IllegalArgumentException("iterations must not be negative");
+        }
+
+        warmUpIterations = iterations;
+        return this;
     }
 
     /**
      * Scan all of the sources registered through {@link #source(AutoCommandSource)} and register any eligible commands.
+     *
+     * Commands are instantiated, inferred and built, in parallel if {@link #parallelism(int)} is set, then registered
+     * with Bukkit on the calling thread. A command which fails to be created is logged and skipped. Commands which
+     * declare an {@link AutoCommand#name()} are registered straight away, but are only created when they are first run
+     * or tab completed.
      */
     public void register() {
         assertNotUsed();
 
-        Set<Class<?>> subCommands = getClassesWithAnnotation(AutoSubCommand.class);
-        subCommands.forEach(this::registerSubCommand);
+        QuitListener.register(plugin);
+
+        collectCandidates();
+
+        for (Candidate candidate : candidates.values()) {
+            if (candidate.getDescriptor().isSubCommand()) {
+                subCommandMap
+                        .computeIfAbsent(candidate.getDescriptor().getParentClassName(), k -> new ArrayList<>())
+                        .add(candidate);
+            }
+        }
+
+        List<Candidate> eagerCommands = new ArrayList<>();
+        for (Candidate candidate : candidates.values()) {
+            if (candidate.getDescriptor().isSubCommand()) {
+                continue;
+            }
+
+            if (candidate.getDescriptor().getCommandName() == null) {
+                eagerCommands.add(candidate);
+                continue;
+            }
 
-        Set<Class<?>> topLevelCommands = getClassesWithAnnotation(AutoCommand.class);
-        for (Class<?> commandClass : topLevelCommands) {
             try {
-                registerTopLevelCommand(commandClass);
+                registerDeferredCommand(candidate);
             } catch (ReflectionCommandCallbackException e) {
-                log.log(Level.SEVERE, "Failed to register auto command " + commandClass, e);
+                log.log(Level.SEVERE, "Failed to register auto command " + candidate, e);
+            }
+        }
+
+        for (CreatedCommand command : createCommands(eagerCommands)) {
+            Throwable failure = command.getFailure();
+
+            if (failure == null) {
+                try {
+                    registerExecutor(command.getName(), command.getExecutor(), command.isComposite());
+                } catch (ReflectionCommandCallbackException e) {
+                    failure = e;
+                }
+            }
+
+            if (failure != null) {
+                log.log(Level.SEVERE, "Failed to register auto command " + command.getCandidate(), failure);
             }
         }
 
-        for (Map.Entry<Class<?>, Set<Class<?>>> entry : subCommandMap.entrySet()) {
-            for (Class<?> unusedSubCommand : entry.getValue()) {
+        // The subcommands of deferred commands are only taken from the map once those commands are loaded
+        Set<String> deferredClassNames = getDeferredSubtreeClassNames();
+
+        for (Map.Entry<String, List<Candidate>> entry : subCommandMap.entrySet()) {
+            if (deferredClassNames.contains(entry.getKey())) {
+                continue;
+            }
+
+            for (Candidate unusedSubCommand : entry.getValue()) {
                 log.warning(unusedSubCommand + " was never created since " + entry.getKey() + " wasn't");
             }
         }
 
+        schedulePreload();
+
         isUsed = true;
     }
 
-    private Set<Class<?>> getClassesWithAnnotation(Class<? extends Annotation> annotation) {
-        if (classes == null) {
-            classes = new HashSet<>();
-            for (AutoCommandSource source : sources) {
-                classes.addAll(source.getClassesForScanning());
+    /**
+     * The class names of every deferred command and of the auto subcommands which would be attached beneath them.
+     */
+    private Set<String> getDeferredSubtreeClassNames() {
+        Set<String> classNames = new HashSet<>();
+        Deque<String> pending = new ArrayDeque<>();
+
+        for (Candidate candidate : candidates.values()) {
+            if (!candidate.getDescriptor().isSubCommand() && candidate.getDescriptor().getCommandName() != null) {
+                pending.add(candidate.getDescriptor().getClassName());
+            }
+        }
+
+        while (!pending.isEmpty()) {
+            String className = pending.remove();
+            if (!classNames.add(className)) {
+                continue;
+            }
+
+            for (Candidate child : subCommandMap.getOrDefault(className, List.of())) {
+                pending.add(child.getDescriptor().getClassName());
+            }
+        }
+
+        return classNames;
+    }
+
+    private void collectCandidates() {
+        for (AutoCommandSource source : sources) {
+            if (source instanceof ScanningAutoCommandSource) {
+                ScanningAutoCommandSource scanningSource = (ScanningAutoCommandSource) source;
+
+                List<ScannedCommandClass> scannedClasses;
+                try {
+                    scannedClasses = scanningSource.scan();
+                } catch (IOException | UncheckedIOException e) {
+                    log.log(Level.SEVERE, "Failed to scan " + source, e);
+                    continue;
+                }
+
+                for (ScannedCommandClass scannedClass : scannedClasses) {
+                    candidates.putIfAbsent(scannedClass.getClassName(),
+                            new Candidate(scannedClass, scanningSource.getClassLoader(), null));
+                }
+            } else {
+                for (Class<?> cls : source.getClassesForScanning()) {
+                    ScannedCommandClass descriptor = describe(cls);
+                    if (descriptor != null) {
+                        candidates.putIfAbsent(cls.getName(), new Candidate(descriptor, cls.getClassLoader(), cls));
+                    }
+                }
+            }
+        }
+    }
+
+    private ScannedCommandClass describe(Class<?> cls) {
+        AutoCommand autoCommand = cls.getAnnotation(AutoCommand.class);
+        if (autoCommand != null) {
+            String name = autoCommand.name().isEmpty() ? null : autoCommand.name();
+            return new ScannedCommandClass(cls.getName(), false, null, autoCommand.factoryMethod(), name);
+        }
+
+        AutoSubCommand autoSubCommand = cls.getAnnotation(AutoSubCommand.class);
+        if (autoSubCommand != null) {
+            return new ScannedCommandClass(cls.getName(), true, autoSubCommand.value().getName(),
+                    autoSubCommand.factoryMethod(), null);
+        }
+
+        return null;
+    }
+
+    /**
+     * Create the executors of commands on a fork-join pool, leaving them to be registered on the calling thread. The
+     * results are in the same order as the candidates.
+     */
+    private List<CreatedCommand> createCommands(List<Candidate> commandCandidates) {
+        if (parallelism == 1 || commandCandidates.isEmpty()) {
+            return commandCandidates.stream()
+                    .map(candidate -> createCommand(candidate, false))
+                    .collect(Collectors.toList());
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(parallelism, this::createWorkerThread, null, false);
+
+        try {
+            List<ForkJoinTask<CreatedCommand>> tasks = new ArrayList<>();
+            for (Candidate candidate : commandCandidates) {
+                tasks.add(pool.submit(() -> createCommand(candidate, true)));
+            }
+
+            return tasks.stream()
+                    .map(ForkJoinTask::join)
+                    .collect(Collectors.toList());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private ForkJoinWorkerThread createWorkerThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        thread.setName(plugin.getName() + " command builder " + thread.getPoolIndex());
+        thread.setContextClassLoader(plugin.getClass().getClassLoader());
+        return thread;
+    }
+
+    /**
+     * Create a command, forking its subcommands into the pool from {@link #createCommands(List)} if it is running in
+     * that pool.
+     */
+    private CreatedCommand createCommand(Candidate candidate, boolean parallel) {
+        try {
+            Object instance = createInstance(candidate);
+            String name = getTopLevelName(instance);
+            TabExecutor executor = createTopLevelExecutor(candidate, instance, parallel);
+
+            return new CreatedCommand(candidate, name, executor, instance instanceof CompositeTopLevelCommand, null);
+        } catch (RuntimeException | LinkageError e) {
+            // Anything thrown by the command's own code only skips that command, as it did before commands were
+            // created in parallel
+            return new CreatedCommand(candidate, null, null, false, e);
+        }
+    }
+
+    private void schedulePreload() {
+        if (preloadExecutor == null && warmUpIterations == 0) {
+            return;
+        }
+
+        Map<PluginCommand, TabExecutor> commands = new LinkedHashMap<>(registeredCommands);
+        Executor executor = preloadExecutor == null ? TaskExecutors.direct() : preloadExecutor;
+
+        CompletableFuture.runAsync(() -> preload(commands), executor).whenComplete((result, e) -> {
+            if (e != null) {
+                log.log(Level.SEVERE, "Failed to preload auto commands", e);
+            } else if (warmUpIterations > 0) {
+                Bukkit.getScheduler().runTask(plugin, () -> warmUp(commands));
+            }
+        });
+    }
+
+    private void preload(Map<PluginCommand, TabExecutor> commands) {
+        for (TabExecutor executor : commands.values()) {
+            if (executor instanceof DeferredExecutor) {
+                ((DeferredExecutor) executor).preload();
+            } else if (executor instanceof ArgumentWindowExecutor) {
+                ((ArgumentWindowExecutor) executor).preload();
+            }
+        }
+    }
+
+    private void warmUp(Map<PluginCommand, TabExecutor> commands) {
+        CommandSender sender = Bukkit.getConsoleSender();
+
+        for (Map.Entry<PluginCommand, TabExecutor> entry : commands.entrySet()) {
+            try {
+                for (int i = 0; i < warmUpIterations; i++) {
+                    warmUp(sender, entry.getKey(), entry.getValue(), new ArrayList<>());
+                }
+            } catch (RuntimeException e) {
+                log.log(Level.WARNING, "Failed to warm up command " + entry.getKey().getName(), e);
             }
         }
+    }
+
+    private void warmUp(CommandSender sender, PluginCommand command, TabExecutor executor, List<String> arguments) {
+        arguments.add("");
+        List<String> completions = executor.onTabComplete(sender, command, command.getName(),
+                arguments.toArray(new String[0]));
+        arguments.remove(arguments.size() - 1);
+
+        if (completions == null || arguments.size() >= WARM_UP_DEPTH) {
+            return;
+        }
 
-        return classes.stream()
-                .filter(cls -> cls.isAnnotationPresent(annotation))
-                .collect(Collectors.toSet());
+        for (String completion : completions.subList(0, Math.min(completions.size(), WARM_UP_BREADTH))) {
+            arguments.add(completion);
+            warmUp(sender, command, executor, arguments);
+            arguments.remove(arguments.size() - 1);
+        }
     }
 
-    private void registerTopLevelCommand(Class<?> commandClass) {
-        AutoCommand annotation = commandClass.getAnnotation(AutoCommand.class);
-        Object instance = createInstance(commandClass, annotation.factoryMethod());
+    private void registerDeferredCommand(Candidate candidate) {
+        String declaredName = candidate.getDescriptor().getCommandName();
+
+        PluginCommand bukkitCommand = getBukkitCommand(declaredName);
 
+        TabExecutor executor = new DeferredExecutor(declaredName, () -> {
+            Object instance = createInstance(candidate);
+
+            String name = getTopLevelName(instance);
+            if (!name.equals(declaredName)) {
+                throw new ReflectionCommandCallbackException("auto command " + instance + " was named " + name +
+                        " but its annotation declared " + declaredName);
+            }
+
+            // Deferred commands may be loaded from any thread, including those of an unrelated fork join pool, so their
+            // subcommands are always created one at a time
+            TabExecutor createdExecutor = createTopLevelExecutor(candidate, instance, false);
+            if (instance instanceof CompositeTopLevelCommand) {
+                injectUsage(bukkitCommand);
+            }
+
+            return createdExecutor;
+        });
+
+        bukkitCommand.setExecutor(executor);
+        bukkitCommand.setTabCompleter(executor);
+        registeredCommands.put(bukkitCommand, executor);
+    }
+
+    private String getTopLevelName(Object instance) {
         if (instance instanceof TopLevelCommand) {
-            TopLevelCommand command = (TopLevelCommand) instance;
-            registerExecutor(command.getName(), command.getOrCreateExecutor(), false);
+            return ((TopLevelCommand) instance).getName();
+        } else if (instance instanceof CompositeTopLevelCommand) {
+            return ((CompositeTopLevelCommand) instance).getName();
+        } else {
+            throw new ReflectionCommandCallbackException("auto command " + instance + " did not have an " +
+                    "appropriate superclass");
+        }
+    }
+
+    private TabExecutor createTopLevelExecutor(Candidate candidate, Object instance, boolean parallel) {
+        if (instance instanceof TopLevelCommand) {
+            return ((TopLevelCommand) instance).getOrCreateExecutor();
         } else if (instance instanceof CompositeTopLevelCommand) {
             CompositeTopLevelCommand oldCommand = (CompositeTopLevelCommand) instance;
 
@@ -111,7 +447,7 @@ public class AutoCommandBuilder {
 
                     oldCommand.configure(builder);
 
-                    getAutoSubCommandsForClass(commandClass, builder)
+                    getAutoSubCommandsForClass(candidate, builder, parallel)
                             .forEach(builder::command);
                 }
 
@@ -121,42 +457,62 @@ public class AutoCommandBuilder {
                 }
             };
 
-            registerExecutor(newCommand.getName(), newCommand.getOrCreateExecutor(), true);
+            return newCommand.getOrCreateExecutor();
         } else {
             throw new ReflectionCommandCallbackException("auto command " + instance + " did not have an " +
                     "appropriate superclass");
         }
     }
 
-    private void registerSubCommand(Class<?> commandClass) {
-        AutoSubCommand annotation = commandClass.getAnnotation(AutoSubCommand.class);
-        subCommandMap
-                .computeIfAbsent(annotation.value(), k -> new HashSet<>())
-                .add(commandClass);
-    }
-
-    private Set<SubCommand> getAutoSubCommandsForClass(Class<?> cls, CompositeCommandBuilder builder) {
-        Set<Class<?>> subCommandClasses = subCommandMap.remove(cls);
-        if (subCommandClasses == null) {
+    /**
+     * Create the subcommands of a composite command, forking them into the pool from {@link #createCommands(List)} if
+     * it is running in that pool.
+     */
+    private Set<SubCommand> getAutoSubCommandsForClass(Candidate parent, CompositeCommandBuilder builder,
+                                                       boolean parallel) {
+        List<Candidate> subCommandCandidates = subCommandMap.remove(parent.getDescriptor().getClassName());
+        if (subCommandCandidates == null) {
             return Set.of();
         }
 
+        List<ForkJoinTask<SubCommand>> tasks = new ArrayList<>();
+        for (Candidate subCommandCandidate : subCommandCandidates) {
+            tasks.add(ForkJoinTask.adapt(() -> {
+                try {
+                    SubCommand subCommand = createSubCommand(subCommandCandidate, builder, parallel);
+
+                    // Leaf executors are otherwise created on first use, so build them while still in parallel
+                    if (parallel) {
+                        subCommand.getOrCreateExecutor(builder.metadata);
+                    }
+
+                    return subCommand;
+                } catch (RuntimeException | LinkageError e) {
+                    log.log(Level.SEVERE, "Failed to register auto subcommand " + subCommandCandidate, e);
+                    return null;
+                }
+            }));
+        }
+
+        if (parallel) {
+            ForkJoinTask.invokeAll(tasks);
+        } else {
+            tasks.forEach(ForkJoinTask::invoke);
+        }
+
         Set<SubCommand> subCommands = new HashSet<>();
-        for (Class<?> subCommandClass : subCommandClasses) {
-            try {
-                SubCommand subCommand = createSubCommand(subCommandClass, builder);
+        for (ForkJoinTask<SubCommand> task : tasks) {
+            SubCommand subCommand = task.join();
+            if (subCommand != null) {
                 subCommands.add(subCommand);
-            } catch (ReflectionCommandCallbackException e) {
-                log.log(Level.SEVERE, "Failed to register auto subcommand " + subCommandClass, e);
             }
         }
 
         return subCommands;
     }
 
-    private SubCommand createSubCommand(Class<?> subCommandClass, CompositeCommandBuilder builder) {
-        AutoSubCommand annotation = subCommandClass.getAnnotation(AutoSubCommand.class);
-        Object instance = createInstance(subCommandClass, annotation.factoryMethod());
+    private SubCommand createSubCommand(Candidate candidate, CompositeCommandBuilder builder, boolean parallel) {
+        Object instance = createInstance(candidate);
 
         if (instance instanceof SubCommand) {
             return (SubCommand) instance;
@@ -168,7 +524,7 @@ public class AutoCommandBuilder {
                 protected void configure(CompositeCommandBuilder builder) {
                     compositeSubCommand.configure(builder);
 
-                    getAutoSubCommandsForClass(subCommandClass, builder)
+                    getAutoSubCommandsForClass(candidate, builder, parallel)
                             .forEach(builder::command);
                 }
 
@@ -182,6 +538,11 @@ public class AutoCommandBuilder {
                     return compositeSubCommand.getDescription();
                 }
 
+                @Override
+                public List<String> getAliases() {
+                    return compositeSubCommand.getAliases();
+                }
+
                 @Override
                 public Optional<String> getPermission() {
                     return compositeSubCommand.getPermission();
@@ -194,20 +555,54 @@ public class AutoCommandBuilder {
     }
 
     private void registerExecutor(String name, TabExecutor executor, boolean injectUsage) {
+        PluginCommand bukkitCommand = getBukkitCommand(name);
+
+        bukkitCommand.setExecutor(executor);
+        bukkitCommand.setTabCompleter(executor);
+        registeredCommands.put(bukkitCommand, executor);
+
+        if (injectUsage) {
+            injectUsage(bukkitCommand);
+        }
+    }
+
+    private PluginCommand getBukkitCommand(String name) {
         PluginCommand bukkitCommand = Bukkit.getServer().getPluginCommand(name);
         if (bukkitCommand == null) {
             throw new ReflectionCommandCallbackException("command " + name + " was not found");
         }
 
-        bukkitCommand.setExecutor(executor);
-        bukkitCommand.setTabCompleter(executor);
+        return bukkitCommand;
+    }
+
+    private void injectUsage(PluginCommand bukkitCommand) {
+        // Deferred commands may be loaded while preloading on another thread, but the command belongs to the server
+        if (!Bukkit.isPrimaryThread()) {
+            Bukkit.getScheduler().runTask(plugin, () -> injectUsage(bukkitCommand));
+            return;
+        }
 
-        if (injectUsage && bukkitCommand.getUsage().isBlank()) {
-            bukkitCommand.setUsage(CompositeCommandBuilder.getDefaultUsage(name));
+        if (bukkitCommand.getUsage().isBlank()) {
+            bukkitCommand.setUsage(CompositeCommandBuilder.getDefaultUsage(bukkitCommand.getName()));
         }
     }
 
+    private Object createInstance(Candidate candidate) {
+        return createInstance(candidate.load(), candidate.getDescriptor().getFactoryMethod());
+    }
+
     private Object createInstance(Class<?> commandClass, String factoryMethodName) {
+        Optional<CommandDispatcher> dispatcher = CommandDispatchers.get(commandClass);
+        if (dispatcher.isPresent() && dispatcher.get().isInstantiable()) {
+            try {
+                return dispatcher.get().newInstance(new AutoCommandContext(plugin));
+            } catch (Throwable e) {
+                String source = factoryMethodName.equals("") ? "constructor on " + commandClass
+                        : "method " + factoryMethodName + " on " + commandClass;
+                throw new ReflectionCommandCallbackException(source + " threw an unhandled exception", e);
+            }
+        }
+
         if (factoryMethodName.equals("")) {
             try {
                 Constructor constructor = commandClass.getDeclaredConstructor();
@@ -254,4 +649,56 @@ public class AutoCommandBuilder {
         }
     }
 
+    /**
+     * The result of creating a command in parallel, which is either an executor to register or the reason it couldn't
+     * be created.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    private static class CreatedCommand {
+
+        private final Candidate candidate;
+        private final String name;
+        private final TabExecutor executor;
+        private final boolean composite;
+        private final Throwable failure;
+    }
+
+    /**
+     * A class found by one of the sources, which is only loaded once it is needed.
+     */
+    private static class Candidate {
+
+        @Getter
+        private final ScannedCommandClass descriptor;
+        private final ClassLoader classLoader;
+        private volatile Class<?> loadedClass;
+
+        private Candidate(ScannedCommandClass descriptor, ClassLoader classLoader, Class<?> loadedClass) {
+            this.descriptor = descriptor;
+            this.classLoader = classLoader;
+            this.loadedClass = loadedClass;
+        }
+
+        private Class<?> load() {
+            Class<?> cls = loadedClass;
+            if (cls == null) {
+                try {
+                    cls = Class.forName(descriptor.getClassName(), false, classLoader);
+                } catch (ClassNotFoundException | LinkageError e) {
+                    throw new ReflectionCommandCallbackException("could not load " + descriptor.getClassName(), e);
+                }
+
+                loadedClass = cls;
+            }
+
+            return cls;
+        }
+
+        @Override
+        public String toString() {
+            return descriptor.getClassName();
+        }
+    }
+
 }
@@ -0,0 +1,46 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Scans JARs for auto commands without loading their classes, as {@link AutoCommandBuilder#jarSource(File, String)}
+ * does.
+ *
+ * This is meant for tools, such as benchmarks, which scan a JAR outside of a plugin or load its classes with a class
+ * loader of their own. It is not part of the stable API, and plugins should use {@link AutoCommandBuilder} instead.
+ */
+@UtilityClass
+public class AutoCommandScanner {
+
+    /**
+     * Find the names of the auto commands and auto subcommands in a JAR whose names match a pattern.
+     *
+     * @param cacheFolder the folder to cache the result in as a plugin's data folder would, or null to always scan
+     */
+    public List<String> scanClassNames(File jar, String classNamePattern, File cacheFolder) throws IOException {
+        return createSource(jar, classNamePattern, null, cacheFolder).scan().stream()
+                .map(ScannedCommandClass::getClassName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * A source of the auto commands in a JAR, which are loaded with the given class loader once they are needed.
+     *
+     * @param cacheFolder the folder to cache the scan in as a plugin's data folder would, or null to always scan
+     */
+    public AutoCommandSource jarSource(File jar, String classNamePattern, ClassLoader classLoader, File cacheFolder) {
+        return createSource(jar, classNamePattern, classLoader, cacheFolder);
+    }
+
+    private JarAutoCommandSource createSource(File jar, String classNamePattern, ClassLoader classLoader,
+                                              File cacheFolder) {
+        ScanCache cache = cacheFolder == null ? null : ScanCache.in(cacheFolder, jar, classNamePattern);
+        return new JarAutoCommandSource(jar, Pattern.compile(classNamePattern), cache, classLoader);
+    }
+}
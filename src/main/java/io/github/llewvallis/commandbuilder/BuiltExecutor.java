@@ -1,160 +1,314 @@
 package io.github.llewvallis.commandbuilder;
 
-import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
-import org.bukkit.command.TabExecutor;
 
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
-/* package-private */ class BuiltExecutor implements TabExecutor {
+/* package-private */ class BuiltExecutor implements ArgumentWindowExecutor {
 
-    private final List<ArgumentParser<?>> parsers;
-    private final ArgumentParser<?> variadicParser;
+    private static final Object PARSE_FAILED = new Object();
+
+    private final ParsePlan plan;
     private final CommandCallback callback;
 
     private final String usageMessage;
+    private final Executor completionExecutor;
+    private final int completionLimit;
+
+    private final ArgumentMatcher matcher;
+    private final ArgumentBuffer.Pool buffers;
+
+    /* package-private */ BuiltExecutor(ParsePlan plan, CommandCallback callback, String usageMessage,
+                                        Executor completionExecutor, int completionLimit) {
+        this.plan = plan;
+        this.callback = callback;
+        this.usageMessage = usageMessage;
+        this.completionExecutor = completionExecutor;
+        this.completionLimit = completionLimit;
+
+        matcher = new ArgumentMatcher(plan);
+        buffers = new ArgumentBuffer.Pool(plan);
+    }
 
     @Override
-    public boolean onCommand(CommandSender sender, Command command, String alias, String[] argumentStrings) {
-        CommandContext context = new CommandContext(sender, command, alias, List.of(argumentStrings), getUsageMessage(command));
-
-        try {
-            List<Object> argumentValues = new ArrayList<>();
-            List<Object> variadicArgumentValues = new ArrayList<>();
-
-            tryParseCommand(argumentStrings, context, argumentValues, variadicArgumentValues);
+    public boolean onCommand(CommandSender sender, Command command, String alias, ArgumentWindow argumentStrings,
+                             CommandPath path) {
+        CommandMetrics metrics = MetricsSupport.getGlobal();
+        if (metrics != CommandMetrics.NONE) {
+            return onMeasuredCommand(metrics, sender, command, alias, argumentStrings,
+                    MetricsSupport.getPath(command, path));
+        }
 
-            // Pass null as opposed to an empty list in the case that the command is not variadic
-            if (!isVariadic()) {
-                variadicArgumentValues = null;
-            }
+        CommandContext context = new CommandContext(sender, command, alias, argumentStrings, getUsageMessage(command));
+        ArgumentBuffer buffer = buffers.acquire();
 
-            callback.onSuccess(argumentValues, variadicArgumentValues, context);
+        try {
+            matcher.match(argumentStrings, context, buffer);
+            dispatch(buffer, context);
         } catch (CommandParseException e) {
             callback.onFailure(e, context);
+        } finally {
+            buffers.release(buffer);
         }
 
         return true;
     }
 
-    private void tryParseCommand(String[] argumentStrings, CommandContext context, List<Object> argumentValues, List<Object> variadicArgumentValues) throws CommandParseException {
-        int parserIndex = 0;
-        int argumentStringIndex = 0;
+    /**
+     * Run the command as {@link #onCommand} does, timing the parse and callback phases separately. Reporting a failure
+     * to the sender is not included in either phase, except for invalid arguments read lazily by the callback.
+     */
+    private boolean onMeasuredCommand(CommandMetrics metrics, CommandSender sender, Command command, String alias,
+                                      ArgumentWindow argumentStrings, CommandPath path) {
+        long allocationStart = MetricsSupport.allocatedBytes(metrics);
+        long parseStart = System.nanoTime();
 
-        for (; parserIndex < parsers.size(); parserIndex++, argumentStringIndex++) {
-            if (argumentStringIndex >= argumentStrings.length) {
-                for (int i = parserIndex; i < parsers.size(); i++) {
-                    if (!parsers.get(i).isOptional()) {
-                        throw new CommandParseException("not enough arguments");
-                    }
+        CommandContext context = new CommandContext(sender, command, alias, argumentStrings, getUsageMessage(command));
+        ArgumentBuffer buffer = buffers.acquire();
 
-                    argumentValues.add(null);
-                }
-
-                break;
+        try {
+            try {
+                matcher.match(argumentStrings, context, buffer);
+            } catch (CommandParseException e) {
+                long parseNanos = System.nanoTime() - parseStart;
+                metrics.recordParseFailure(path, MetricsSupport.toReason(buffer.failureKind), parseNanos,
+                        MetricsSupport.allocatedBytesSince(allocationStart));
+
+                callback.onFailure(e, context);
+                return true;
             }
 
-            ArgumentParser parser = parsers.get(parserIndex);
-            String argumentString = argumentStrings[argumentStringIndex];
+            // A callback which throws isn't recorded, so the exception is left to propagate
+            long callbackStart = System.nanoTime();
+            CompletableFuture<Boolean> parsed = dispatch(buffer, context);
 
-            try {
-                Object value = parser.parse(argumentString, argumentStringIndex, context);
-                argumentValues.add(value);
-            } catch (ArgumentParseException e) {
-                if (parser.isOptional()) {
-                    argumentValues.add(null);
-                    argumentStringIndex--;
-                } else {
-                    throw new CommandParseException("invalid argument: " + argumentString + ", " + e.getMessage());
-                }
+            long parseNanos = callbackStart - parseStart;
+            long callbackNanos = System.nanoTime() - callbackStart;
+            long allocatedBytes = MetricsSupport.allocatedBytesSince(allocationStart);
+
+            if (!parsed.isDone()) {
+                parsed.thenAccept(valid ->
+                        recordOutcome(metrics, path, valid, parseNanos, callbackNanos, allocatedBytes));
+            } else if (!parsed.isCompletedExceptionally()) {
+                recordOutcome(metrics, path, parsed.join(), parseNanos, callbackNanos, allocatedBytes);
             }
+        } finally {
+            buffers.release(buffer);
         }
 
-        if (argumentStringIndex <= argumentStrings.length - 1) {
+        return true;
+    }
+
+    /**
+     * Record a command as having run, or as having failed to parse if its callback read an invalid argument lazily.
+     */
+    private static void recordOutcome(CommandMetrics metrics, CommandPath path, boolean parsed, long parseNanos,
+                                      long callbackNanos, long allocatedBytes) {
+        if (parsed) {
+            metrics.recordExecution(path, parseNanos, callbackNanos, allocatedBytes);
+        } else {
+            // The invalid argument was only parsed once the callback was running, so all of it counts as parsing
+            metrics.recordParseFailure(path, ParseFailureReason.INVALID_ARGUMENT, parseNanos + callbackNanos,
+                    allocatedBytes);
+        }
+    }
+
+    /**
+     * Run the callback with the matched arguments.
+     *
+     * @return a future of whether the arguments the callback read lazily were valid, which completes exceptionally if
+     * an asynchronous callback throws or is cancelled
+     */
+    private CompletableFuture<Boolean> dispatch(ArgumentBuffer buffer, CommandContext context) {
+        if (plan.hasContextSlot()) {
+            return ((ReflectionCommandCallback) callback).invoke(buffer, context);
+        } else {
+            // Arbitrary callbacks may hold onto the values they are given, so they get their own copies
+            Object[] argumentValues = new Object[buffer.slots.length];
+            for (int i = 0; i < argumentValues.length; i++) {
+                argumentValues[i] = buffer.getValue(i);
+            }
+
+            // Pass null as opposed to an empty list in the case that the command is not variadic
+            List<Object> variadicArgumentValues = null;
             if (isVariadic()) {
-                for (; argumentStringIndex < argumentStrings.length; argumentStringIndex++) {
-                    String argumentString = argumentStrings[argumentStringIndex];
-
-                    try {
-                        Object value = variadicParser.parse(argumentString, argumentStringIndex, context);
-                        variadicArgumentValues.add(value);
-                    } catch (ArgumentParseException e) {
-                        throw new CommandParseException("invalid argument: " + argumentString + ", " + e.getMessage());
-                    }
+                Object[] variadicValues = new Object[buffer.variadicCount];
+                for (int i = 0; i < variadicValues.length; i++) {
+                    variadicValues[i] = buffer.getVariadicValue(i);
                 }
-            } else {
-                throw new CommandParseException("too many arguments");
+
+                variadicArgumentValues = Arrays.asList(variadicValues);
             }
+
+            callback.onSuccess(Arrays.asList(argumentValues), variadicArgumentValues, context);
+            return ReflectionCommandCallback.PARSED;
         }
     }
 
     @Override
-    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias,
+                                      ArgumentWindow argumentStrings) {
         // Shouldn't happen, but handle it nicely just in-case
-        if (argumentStrings.length == 0) {
+        if (argumentStrings.size() == 0) {
             Bukkit.getLogger().warning("received zero length argument list when tab completing '" + alias + "'");
             return Collections.emptyList();
         }
 
-        CommandContext context = new CommandContext(sender, command, alias, List.of(argumentStrings), getUsageMessage(command));
+        CommandContext context = new CommandContext(sender, command, alias, argumentStrings, getUsageMessage(command));
+
+        RankedCompletions completions = createCompletions(argumentStrings);
+        availableCompletes(context, argumentStrings, completions);
+
+        return completions.toList();
+    }
 
-        String partialArgument = argumentStrings[argumentStrings.length - 1];
+    @Override
+    public CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                              ArgumentWindow argumentStrings,
+                                                              Executor inheritedExecutor) {
+        // Shouldn't happen, but handle it nicely just in-case
+        if (argumentStrings.size() == 0) {
+            Bukkit.getLogger().warning("received zero length argument list when tab completing '" + alias + "'");
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
 
-        Set<String> availableCompletes = availableCompletes(context, argumentStrings);
-        List<String> trimmedCompletes = availableCompletes.stream()
-                .filter(complete -> complete.toLowerCase().startsWith(partialArgument.toLowerCase()))
-                .collect(Collectors.toList());
+        CommandContext context = new CommandContext(sender, command, alias, argumentStrings, getUsageMessage(command));
+        Executor executor = completionExecutor != null
+                ? completionExecutor
+                : Objects.requireNonNullElseGet(inheritedExecutor, TaskExecutors::direct);
 
-        return trimmedCompletes;
+        return availableCompletesAsync(context, argumentStrings, executor)
+                .thenApply(availableCompletes -> trimCompletes(availableCompletes, argumentStrings));
     }
 
-    private Set<String> availableCompletes(CommandContext context, String[] argumentStrings) {
-        List<Object> parsedValues = new ArrayList<>();
+    private List<String> trimCompletes(Set<String> availableCompletes, ArgumentWindow argumentStrings) {
+        RankedCompletions completions = createCompletions(argumentStrings);
 
-        int argumentStringIndex = 0;
+        for (String complete : availableCompletes) {
+            completions.accept(complete);
+        }
 
-        for (ArgumentParser<?> parser : parsers) {
-            String argument = argumentStrings[argumentStringIndex];
+        return completions.toList();
+    }
+
+    private RankedCompletions createCompletions(ArgumentWindow argumentStrings) {
+        String partialArgument = argumentStrings.get(argumentStrings.size() - 1);
+        return new RankedCompletions(partialArgument, completionLimit);
+    }
 
-            if (argumentStringIndex == argumentStrings.length - 1) {
-                // TODO Pull completes form multiple parsers if the current one is optional
-                return parser.complete(parsedValues, argument, argumentStringIndex, context);
+    private void availableCompletes(CommandContext context, ArgumentWindow argumentStrings, CompletionSink sink) {
+        CompletionSession session = CompletionSessions.get(context.getSender());
+        int lastIndex = argumentStrings.size() - 1;
+
+        synchronized (session) {
+            ArgumentParser<?> parser = prepareCompletion(session, context, argumentStrings);
+            if (parser != null) {
+                parser.completeInto(session.getParsedValues(), argumentStrings.get(lastIndex), lastIndex, context, sink);
             }
+        }
+    }
 
-            try {
-                Object parsedValue = parser.parse(argument, argumentStringIndex, context);
-                parsedValues.add(parsedValue);
-                argumentStringIndex++;
-            } catch (ArgumentParseException e) {
-                parsedValues.add(null);
-
-                if (!parser.isOptional()) {
-                    argumentStringIndex++;
-                }
+    /**
+     * Parse all but the last argument on the calling thread, since parsers may use the Bukkit API, and then hand the
+     * parser of the last argument to the executor to complete it.
+     */
+    private CompletableFuture<Set<String>> availableCompletesAsync(CommandContext context,
+                                                                   ArgumentWindow argumentStrings, Executor executor) {
+        CompletionSession session = CompletionSessions.get(context.getSender());
+        int lastIndex = argumentStrings.size() - 1;
+        String currentArgument = argumentStrings.get(lastIndex);
+
+        ArgumentParser<?> parser;
+        List<Object> parsedValues;
+
+        synchronized (session) {
+            parser = prepareCompletion(session, context, argumentStrings);
+            if (parser == null) {
+                return CompletableFuture.completedFuture(Collections.emptySet());
             }
+
+            // The session may be rewound by another request before the completions arrive
+            parsedValues = Collections.unmodifiableList(new ArrayList<>(session.getParsedValues()));
         }
 
-        if (this.isVariadic()) {
-            for (; argumentStringIndex < argumentStrings.length - 1; argumentStringIndex++) {
-                String argument = argumentStrings[argumentStringIndex];
+        return CompletableFuture.supplyAsync(() -> parser.completeAsync(parsedValues, currentArgument, lastIndex, context),
+                executor).thenCompose(availableCompletes -> availableCompletes);
+    }
 
-                try {
-                    Object parsedValue = variadicParser.parse(argument, argumentStringIndex, context);
-                    parsedValues.add(parsedValue);
-                } catch (ArgumentParseException e) {
-                    parsedValues.add(null);
-                }
-            }
+    /**
+     * Bring the session up to date with all but the last argument, returning the parser which should complete the last
+     * argument or null if there is none.
+     */
+    private ArgumentParser<?> prepareCompletion(CompletionSession session, CommandContext context,
+                                                ArgumentWindow argumentStrings) {
+        int lastIndex = argumentStrings.size() - 1;
+        int parsedCount = session.rewind(this, context.getCommand(), context.getAlias(), argumentStrings, lastIndex);
+
+        for (int argumentStringIndex = parsedCount; argumentStringIndex < lastIndex; argumentStringIndex++) {
+            consumeArgument(session, argumentStrings.get(argumentStringIndex), argumentStringIndex, context);
+        }
+
+        int parserIndex = session.getParserIndex();
 
-            String argument = argumentStrings[argumentStringIndex];
-            return variadicParser.complete(parsedValues, argument, argumentStringIndex, context);
+        if (parserIndex < plan.getParserCount()) {
+            // TODO Pull completes form multiple parsers if the current one is optional
+            return plan.getParser(parserIndex);
+        } else if (isVariadic()) {
+            return plan.getVariadicParser();
         } else {
-            return Collections.emptySet();
+            return null;
+        }
+    }
+
+    private void consumeArgument(CompletionSession session, String argument, int position, CommandContext context) {
+        int parserIndex = session.getParserIndex();
+
+        while (parserIndex < plan.getParserCount()) {
+            Object parsedValue = parseForCompletion(session, parserIndex, argument, position, context);
+            boolean optional = plan.isOptional(parserIndex);
+            parserIndex++;
+
+            if (parsedValue != PARSE_FAILED) {
+                session.addValue(parsedValue);
+                session.pushArgument(argument, parserIndex);
+                return;
+            }
+
+            session.addValue(null);
+
+            if (!optional) {
+                session.pushArgument(argument, parserIndex);
+                return;
+            }
+        }
+
+        if (isVariadic()) {
+            Object parsedValue = parseForCompletion(session, parserIndex, argument, position, context);
+            session.addValue(parsedValue != PARSE_FAILED ? parsedValue : null);
+        }
+
+        session.pushArgument(argument, parserIndex);
+    }
+
+    private Object parseForCompletion(CompletionSession session, int parserIndex, String argument, int position,
+                                      CommandContext context) {
+        if (session.hasFailed(parserIndex, position, argument)) {
+            return PARSE_FAILED;
+        }
+
+        ArgumentParser<?> parser = parserIndex < plan.getParserCount()
+                ? plan.getParser(parserIndex)
+                : plan.getVariadicParser();
+
+        try {
+            return parser.parse(argument, position, context);
+        } catch (ArgumentParseException e) {
+            session.recordFailure(parserIndex, position, argument);
+            return PARSE_FAILED;
         }
     }
 
@@ -163,6 +317,6 @@ import java.util.stream.Collectors;
     }
 
     private boolean isVariadic() {
-        return variadicParser != null;
+        return plan.isVariadic();
     }
 }
@@ -0,0 +1,275 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * The {@link ExecuteCommand} method of a {@link ReflectionCommandCallback}, resolved, validated and bound to its
+ * instance once so that invoking it costs little more than a direct call.
+ *
+ * Everything about the method which does not depend on the parsed values is checked when the invoker is created. Each
+ * invocation only compares the argument count and checks that the values have the types the method expects, which the
+ * argument parsers cannot promise.
+ *
+ * The method is called with two arrays laid out as in {@link ParsePlan}. Primitive parameters are read from a
+ * {@code long[]} as encoded by {@link PrimitiveType}, and all other parameters from an {@code Object[]}, so values which
+ * were parsed unboxed stay unboxed. If the class has an executable {@link CommandDispatcher}, the method is called
+ * through that instead.
+ */
+/* package-private */ final class CallbackInvoker {
+
+    private static final MethodHandle DISPATCHER_EXECUTE;
+    private static final MethodHandle OBJECT_ELEMENT = MethodHandles.arrayElementGetter(Object[].class);
+    private static final MethodHandle LONG_ELEMENT = MethodHandles.arrayElementGetter(long[].class);
+
+    static {
+        try {
+            DISPATCHER_EXECUTE = MethodHandles.publicLookup().findVirtual(CommandDispatcher.class, "execute",
+                    MethodType.methodType(void.class, Object.class, Object[].class, long[].class));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final MethodHandle handle;
+
+    @Getter private final boolean playerOnly;
+    @Getter private final boolean async;
+
+    private final Class<?>[] parameterTypes;
+    private final Class<?>[] boxedParameterTypes;
+    private final PrimitiveType[] primitiveParameterTypes;
+
+    private final Class<?> variadicArrayType;
+    private final Class<?> variadicElementType;
+    private final Class<?> boxedVariadicElementType;
+    private final PrimitiveType primitiveVariadicElementType;
+
+    // Whether the variadic values are passed as VariadicArguments rather than an array
+    @Getter private final boolean lazyVariadic;
+
+    private CallbackInvoker(Method method, MethodHandle handle) {
+        this.handle = handle;
+
+        playerOnly = method.isAnnotationPresent(PlayerOnlyCommand.class);
+        async = method.getAnnotation(ExecuteCommand.class).async();
+
+        parameterTypes = method.getParameterTypes();
+        boxedParameterTypes = new Class<?>[parameterTypes.length];
+        primitiveParameterTypes = new PrimitiveType[parameterTypes.length];
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+            boxedParameterTypes[i] = ReflectionUtil.boxedType(parameterTypes[i]);
+            primitiveParameterTypes[i] = PrimitiveType.of(parameterTypes[i]);
+        }
+
+        Class<?> lastParameterType = parameterTypes.length > 0 ? parameterTypes[parameterTypes.length - 1] : null;
+        lazyVariadic = lastParameterType == VariadicArguments.class;
+
+        if (method.isVarArgs()) {
+            variadicArrayType = parameterTypes[parameterTypes.length - 1];
+            variadicElementType = variadicArrayType.getComponentType();
+            boxedVariadicElementType = ReflectionUtil.boxedType(variadicElementType);
+            primitiveVariadicElementType = PrimitiveType.of(variadicElementType);
+        } else {
+            variadicArrayType = null;
+            variadicElementType = null;
+            boxedVariadicElementType = null;
+            primitiveVariadicElementType = null;
+        }
+    }
+
+    /**
+     * Find the {@link ExecuteCommand} method of an instance and bind it.
+     */
+    /* package-private */ static CallbackInvoker create(Object instance) {
+        Class<?> cls = instance.getClass();
+        Optional<CommandDispatcher> dispatcher = CommandDispatchers.get(cls);
+        Method method = CommandDispatchers.getExecuteMethod(cls);
+
+        if (method.getReturnType() != Void.TYPE) {
+            throw new ReflectionCommandCallbackException("return type must be void");
+        }
+
+        if (dispatcher.isPresent() && dispatcher.get().isExecutable()) {
+            MethodHandle handle = DISPATCHER_EXECUTE.bindTo(dispatcher.get()).bindTo(instance);
+            return new CallbackInvoker(method, handle);
+        }
+
+        MethodHandle handle;
+        try {
+            method.setAccessible(true);
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new ReflectionCommandCallbackException("could not access callback method " + method, e);
+        }
+
+        if (!Modifier.isStatic(method.getModifiers())) {
+            handle = handle.bindTo(instance);
+        }
+
+        return new CallbackInvoker(method, spreadArguments(handle.asFixedArity()));
+    }
+
+    /**
+     * Adapt a handle to take its arguments from an {@code Object[]} and a {@code long[]}, reading each primitive
+     * parameter from the latter.
+     */
+    private static MethodHandle spreadArguments(MethodHandle handle) {
+        Class<?>[] parameterTypes = handle.type().parameterArray();
+        int[] reorder = new int[parameterTypes.length];
+
+        for (int i = 0; i < parameterTypes.length; i++) {
+            Class<?> parameterType = parameterTypes[i];
+            PrimitiveType primitiveType = PrimitiveType.of(parameterType);
+
+            MethodHandle element;
+            if (primitiveType != null) {
+                element = MethodHandles.filterReturnValue(MethodHandles.insertArguments(LONG_ELEMENT, 1, i),
+                        primitiveType.getDecoder());
+                reorder[i] = 1;
+            } else {
+                element = MethodHandles.insertArguments(OBJECT_ELEMENT, 1, i)
+                        .asType(MethodType.methodType(parameterType, Object[].class));
+                reorder[i] = 0;
+            }
+
+            handle = MethodHandles.filterArguments(handle, i, element);
+        }
+
+        MethodType spreadType = MethodType.methodType(void.class, Object[].class, long[].class);
+        return MethodHandles.permuteArguments(handle, spreadType, reorder);
+    }
+
+    /**
+     * Check that the method can accept the values of a command with the provided arguments.
+     */
+    /* package-private */ void checkShape(int argumentCount, boolean variadic) {
+        int expectedCount = 1 + argumentCount + (variadic ? 1 : 0);
+
+        boolean hasVariadicParameter = variadicArrayType != null || lazyVariadic;
+
+        if (variadic && !hasVariadicParameter) {
+            throw new ReflectionCommandCallbackException("missing variadic argument for variadic command");
+        } else if (!variadic && hasVariadicParameter) {
+            throw new ReflectionCommandCallbackException("had a variadic argument for a non-variadic command");
+        } else if (parameterTypes.length != expectedCount) {
+            throw new ReflectionCommandCallbackException("method expected the wrong amount of arguments");
+        }
+    }
+
+    /**
+     * Check the values in a buffer against the method, moving each value into the array its parameter is read from and
+     * filling in the final slot with a typed copy of the variadic values if there are any.
+     *
+     * If the method takes {@link VariadicArguments}, the final slot is instead filled with a view of the values which
+     * were parsed or, if the matcher left them unparsed, of the argument strings they will be parsed from.
+     */
+    /* package-private */ void prepare(ArgumentBuffer buffer) {
+        Object[] arguments = buffer.slots;
+        int argumentCount = buffer.variadic ? arguments.length - 1 : arguments.length;
+
+        checkShape(argumentCount - 1, buffer.variadic);
+
+        for (int i = 0; i < argumentCount; i++) {
+            prepareArgument(buffer, i);
+        }
+
+        if (buffer.variadic) {
+            arguments[arguments.length - 1] = copyVariadicValues(buffer);
+        }
+    }
+
+    /**
+     * Invoke the method with arguments which have been through {@link #prepare(ArgumentBuffer)}.
+     *
+     * @throws Throwable anything thrown by the method itself
+     */
+    /* package-private */ void invoke(Object[] arguments, long[] primitives) throws Throwable {
+        handle.invokeExact(arguments, primitives);
+    }
+
+    private void prepareArgument(ArgumentBuffer buffer, int index) {
+        PrimitiveType slotType = buffer.slotTypes[index];
+        PrimitiveType parameterType = primitiveParameterTypes[index];
+
+        if (slotType != null && slotType == parameterType) {
+            return;
+        }
+
+        Object value = buffer.getValue(index);
+
+        if (value == null) {
+            if (parameterType != null) {
+                throw new ReflectionCommandCallbackException("primitive type " + parameterTypes[index] + " cannot be "
+                        + "optional, try using the boxed type instead");
+            }
+        } else if (!boxedParameterTypes[index].isInstance(value)) {
+            throw new ReflectionCommandCallbackException(value.getClass() + " is not assignable to "
+                    + parameterTypes[index]);
+        }
+
+        if (parameterType != null) {
+            buffer.primitiveSlots[index] = parameterType.encode(value);
+        } else {
+            buffer.slots[index] = value;
+        }
+    }
+
+    private Object copyVariadicValues(ArgumentBuffer buffer) {
+        if (lazyVariadic) {
+            return createVariadicArguments(buffer);
+        }
+
+        int count = buffer.variadicCount;
+        PrimitiveType slotType = buffer.variadicType;
+
+        if (slotType != null && slotType == primitiveVariadicElementType) {
+            return slotType.toArray(buffer.variadicPrimitives, count);
+        }
+
+        Object[] values = buffer.variadicValues;
+        if (slotType != null) {
+            values = new Object[count];
+            for (int i = 0; i < count; i++) {
+                values[i] = slotType.box(buffer.variadicPrimitives[i]);
+            }
+        }
+
+        for (int i = 0; i < count; i++) {
+            Object value = values[i];
+
+            if (!boxedVariadicElementType.isInstance(value)) {
+                throw new ReflectionCommandCallbackException(value.getClass() + " is not assignable to "
+                        + variadicElementType);
+            }
+        }
+
+        if (primitiveVariadicElementType != null) {
+            return primitiveVariadicElementType.toArray(values, count);
+        }
+
+        return Arrays.copyOf(values, count, variadicArrayType.asSubclass(Object[].class));
+    }
+
+    private VariadicArguments<?> createVariadicArguments(ArgumentBuffer buffer) {
+        if (buffer.lazyVariadicParser != null) {
+            return VariadicArguments.lazy(buffer.lazyArgumentStrings, buffer.variadicStart, buffer.lazyVariadicParser,
+                    (CommandContext) buffer.slots[0]);
+        }
+
+        Object[] values = new Object[buffer.variadicCount];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getVariadicValue(i);
+        }
+
+        return VariadicArguments.of(Arrays.asList(values));
+    }
+}
@@ -0,0 +1,235 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Finds {@link AutoCommand} and {@link AutoSubCommand} annotations by reading class files directly, so that classes
+ * can be scanned without being loaded.
+ *
+ * Only the constant pool and the class level {@code RuntimeVisibleAnnotations} attribute are read. A class file whose
+ * constant pool doesn't mention either annotation is rejected as soon as the pool has been read, without decoding any
+ * of its strings. The annotations are matched by their runtime names, so they are still found if this library has been
+ * relocated when shading.
+ */
+@UtilityClass
+/* package-private */ class ClassFileScanner {
+
+    private final int MAGIC = 0xCAFEBABE;
+
+    private final byte[] AUTO_COMMAND = descriptor(AutoCommand.class);
+    private final byte[] AUTO_SUB_COMMAND = descriptor(AutoSubCommand.class);
+
+    private final String RUNTIME_VISIBLE_ANNOTATIONS = "RuntimeVisibleAnnotations";
+
+    /**
+     * Scan a class file, returning null if it is not an auto command or could not be read.
+     */
+    public ScannedCommandClass scan(byte[] classFile) {
+        try {
+            return scan(ByteBuffer.wrap(classFile));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private ScannedCommandClass scan(ByteBuffer buffer) {
+        if (buffer.getInt() != MAGIC) {
+            return null;
+        }
+
+        // Minor and major version
+        buffer.position(buffer.position() + 4);
+
+        int poolCount = buffer.getShort() & 0xFFFF;
+
+        // The offset of each UTF-8 entry and class entry's name index
+        int[] offsets = new int[poolCount];
+        boolean mentionsAnnotation = false;
+
+        for (int i = 1; i < poolCount; i++) {
+            int tag = buffer.get();
+            offsets[i] = buffer.position();
+
+            switch (tag) {
+                case 1:
+                    int length = buffer.getShort() & 0xFFFF;
+                    mentionsAnnotation |= utf8Equals(buffer, offsets[i], AUTO_COMMAND)
+                            || utf8Equals(buffer, offsets[i], AUTO_SUB_COMMAND);
+                    buffer.position(buffer.position() + length);
+                    break;
+                case 7: case 8: case 16: case 19: case 20:
+                    buffer.position(buffer.position() + 2);
+                    break;
+                case 15:
+                    buffer.position(buffer.position() + 3);
+                    break;
+                case 3: case 4: case 9: case 10: case 11: case 12: case 17: case 18:
+                    buffer.position(buffer.position() + 4);
+                    break;
+                case 5: case 6:
+                    buffer.position(buffer.position() + 8);
+                    // Eight byte constants take up two entries
+                    i++;
+                    break;
+                default:
+                    return null;
+            }
+        }
+
+        if (!mentionsAnnotation) {
+            return null;
+        }
+
+        // Access flags
+        buffer.position(buffer.position() + 2);
+        int thisClass = buffer.getShort() & 0xFFFF;
+        String className = readUtf8(buffer, offsets, classNameIndex(buffer, offsets, thisClass)).replace('/', '.');
+
+        // Superclass, then interfaces
+        buffer.position(buffer.position() + 2);
+        int interfaceCount = buffer.getShort() & 0xFFFF;
+        buffer.position(buffer.position() + interfaceCount * 2);
+
+        skipMembers(buffer);
+        skipMembers(buffer);
+
+        int attributeCount = buffer.getShort() & 0xFFFF;
+        for (int i = 0; i < attributeCount; i++) {
+            int nameIndex = buffer.getShort() & 0xFFFF;
+            int length = buffer.getInt();
+            int end = buffer.position() + length;
+
+            if (readUtf8(buffer, offsets, nameIndex).equals(RUNTIME_VISIBLE_ANNOTATIONS)) {
+                ScannedCommandClass result = readAnnotations(buffer, offsets, className);
+                if (result != null) {
+                    return result;
+                }
+            }
+
+            buffer.position(end);
+        }
+
+        return null;
+    }
+
+    private void skipMembers(ByteBuffer buffer) {
+        int memberCount = buffer.getShort() & 0xFFFF;
+
+        for (int i = 0; i < memberCount; i++) {
+            // Access flags, name and descriptor
+            buffer.position(buffer.position() + 6);
+
+            int attributeCount = buffer.getShort() & 0xFFFF;
+            for (int j = 0; j < attributeCount; j++) {
+                buffer.position(buffer.position() + 2);
+                int length = buffer.getInt();
+                buffer.position(buffer.position() + length);
+            }
+        }
+    }
+
+    private ScannedCommandClass readAnnotations(ByteBuffer buffer, int[] offsets, String className) {
+        int annotationCount = buffer.getShort() & 0xFFFF;
+
+        for (int i = 0; i < annotationCount; i++) {
+            int typeIndex = buffer.getShort() & 0xFFFF;
+            boolean autoCommand = utf8Equals(buffer, offsets[typeIndex], AUTO_COMMAND);
+            boolean autoSubCommand = utf8Equals(buffer, offsets[typeIndex], AUTO_SUB_COMMAND);
+
+            String parentClassName = null;
+            String factoryMethod = "";
+            String commandName = null;
+
+            int pairCount = buffer.getShort() & 0xFFFF;
+            for (int j = 0; j < pairCount; j++) {
+                String name = readUtf8(buffer, offsets, buffer.getShort() & 0xFFFF);
+                int tag = buffer.get();
+
+                if ((autoCommand || autoSubCommand) && name.equals("factoryMethod") && tag == 's') {
+                    factoryMethod = readUtf8(buffer, offsets, buffer.getShort() & 0xFFFF);
+                } else if (autoCommand && name.equals("name") && tag == 's') {
+                    commandName = readUtf8(buffer, offsets, buffer.getShort() & 0xFFFF);
+                } else if (autoSubCommand && name.equals("value") && tag == 'c') {
+                    String descriptor = readUtf8(buffer, offsets, buffer.getShort() & 0xFFFF);
+                    parentClassName = descriptor.substring(1, descriptor.length() - 1).replace('/', '.');
+                } else {
+                    skipElementValue(buffer, tag);
+                }
+            }
+
+            if (autoCommand) {
+                return new ScannedCommandClass(className, false, null, factoryMethod,
+                        commandName == null || commandName.isEmpty() ? null : commandName);
+            } else if (autoSubCommand && parentClassName != null) {
+                return new ScannedCommandClass(className, true, parentClassName, factoryMethod, null);
+            }
+        }
+
+        return null;
+    }
+
+    private void skipElementValue(ByteBuffer buffer, int tag) {
+        switch (tag) {
+            case 'e':
+                buffer.position(buffer.position() + 4);
+                break;
+            case '@':
+                buffer.position(buffer.position() + 2);
+                int pairCount = buffer.getShort() & 0xFFFF;
+                for (int i = 0; i < pairCount; i++) {
+                    buffer.position(buffer.position() + 2);
+                    skipElementValue(buffer, buffer.get());
+                }
+                break;
+            case '[':
+                int valueCount = buffer.getShort() & 0xFFFF;
+                for (int i = 0; i < valueCount; i++) {
+                    skipElementValue(buffer, buffer.get());
+                }
+                break;
+            default:
+                buffer.position(buffer.position() + 2);
+                break;
+        }
+    }
+
+    private int classNameIndex(ByteBuffer buffer, int[] offsets, int classIndex) {
+        return buffer.getShort(offsets[classIndex]) & 0xFFFF;
+    }
+
+    private boolean utf8Equals(ByteBuffer buffer, int offset, byte[] expected) {
+        int length = buffer.getShort(offset) & 0xFFFF;
+        if (length != expected.length) {
+            return false;
+        }
+
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + 2 + i) != expected[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private String readUtf8(ByteBuffer buffer, int[] offsets, int index) {
+        int offset = offsets[index];
+        int length = buffer.getShort(offset) & 0xFFFF;
+
+        // Class files use a modified UTF-8, which only differs from UTF-8 for nulls and supplementary characters
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + 2 + i);
+        }
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private byte[] descriptor(Class<?> cls) {
+        return ("L" + cls.getName().replace('.', '/') + ";").getBytes(StandardCharsets.UTF_8);
+    }
+}
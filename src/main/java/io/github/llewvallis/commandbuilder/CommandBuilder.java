@@ -7,6 +7,7 @@ import org.bukkit.plugin.java.JavaPlugin;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
@@ -19,6 +20,8 @@ public class CommandBuilder {
     private final List<ArgumentParser<?>> arguments = new ArrayList<>();
     private ArgumentParser<?> variadicArgument = null;
     private String usageMessage = null;
+    private Executor completionExecutor = null;
+    private int completionLimit = Integer.MAX_VALUE;
 
     private boolean constructed = false;
     private boolean canAddArgument = true;
@@ -96,15 +99,49 @@ public class CommandBuilder {
         return this;
     }
 
+    /**
+     * Set the executor which {@link ArgumentParser#completeAsync(java.util.List, String, int, CommandContext)} is called
+     * on when completions are requested through {@link AsyncTabCompleter}.
+     *
+     * The earlier arguments are still parsed on the requesting thread, since parsers may use the Bukkit API. Defaults to
+     * the executor of the composite command this is a subcommand of, or otherwise {@link TaskExecutors#direct()}, which
+     * completes on the requesting thread.
+     */
+    public CommandBuilder completionExecutor(Executor executor) {
+        assertNotConstructed();
+
+        completionExecutor = executor;
+
+        return this;
+    }
+
+    /**
+     * Set the maximum number of tab completions offered at once.
+     *
+     * Only the most relevant completions are kept, see {@link CompletionSink}. By default there is no limit.
+     */
+    public CommandBuilder completionLimit(int limit) {
+        assertNotConstructed();
+
+        if (limit < 0) {
+            throw new IllegalArgumentException("completion limit cannot be negative");
+        }
+
+        completionLimit = limit;
+
+        return this;
+    }
+
     /**
      * Create an executor which parses commands using the configured {@link ArgumentParser}s and delegates to the
      * provided callback.
      *
-     * No other operations can follow this.
+     * The executor also implements {@link AsyncTabCompleter}. No other operations can follow this.
      */
     public TabExecutor build(CommandCallback callback) {
         constructed = true;
-        return new BuiltExecutor(arguments, variadicArgument, callback, usageMessage);
+        ParsePlan plan = ParsePlan.compile(arguments, variadicArgument, callback);
+        return new BuiltExecutor(plan, callback, usageMessage, completionExecutor, completionLimit);
     }
 
     /**
@@ -113,6 +150,7 @@ public class CommandBuilder {
      */
     public TabExecutor build(CommandCallback callback, PluginCommand command) {
         TabExecutor executor = build(callback);
+        QuitListener.register(command.getPlugin());
         command.setExecutor(executor);
         command.setTabCompleter(executor);
         return executor;
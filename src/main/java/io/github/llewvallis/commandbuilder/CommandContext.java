@@ -4,10 +4,14 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.With;
+import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Context about the execution or tab completion of a command.
@@ -31,17 +35,81 @@ public class CommandContext {
      */
     private final String alias;
 
+    @Getter(AccessLevel.NONE)
+    private final ArgumentWindow arguments;
+
+    /**
+     * The usage message which should be displayed if parsing failed.
+     *
+     * Defaults to {@link Command#getUsage()} but can be overridden.
+     */
+    private final String usageMessage;
+
+    @Getter(AccessLevel.NONE)
+    private volatile SenderSnapshot senderSnapshot = null;
+
     /**
      * A raw list of the arguments passed to the command.
      *
-     * This list should not be modified.
+     * This list cannot be modified, and is a view of the arguments Bukkit provided rather than a copy.
      */
-    private final List<String> argumentStrings;
+    public List<String> getArgumentStrings() {
+        return arguments;
+    }
 
     /**
-     * The usage message which should be displayed if parsing failed.
+     * An immutable snapshot of the sender which can be read from any thread.
      *
-     * Defaults to {@link Command#getUsage()} but can be overridden.
+     * For callbacks run with {@link ExecuteCommand#async()} the snapshot is taken before the callback is dispatched,
+     * on the thread the command was sent from. Otherwise it is taken the first time this is called.
      */
-    private final String usageMessage;
+    public SenderSnapshot getSenderSnapshot() {
+        if (senderSnapshot == null) {
+            senderSnapshot = SenderSnapshot.capture(sender);
+        }
+
+        return senderSnapshot;
+    }
+
+    /**
+     * Run a task on the main server thread, for example to touch the world from an asynchronous callback.
+     *
+     * If this is called from the main thread the task is run immediately.
+     */
+    public CompletableFuture<Void> runOnMainThread(Runnable task) {
+        return supplyOnMainThread(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    /**
+     * Compute a value on the main server thread, for example to read from the world in an asynchronous callback.
+     *
+     * If this is called from the main thread the value is computed immediately.
+     */
+    public <T> CompletableFuture<T> supplyOnMainThread(Supplier<T> supplier) {
+        if (Bukkit.isPrimaryThread()) {
+            try {
+                return CompletableFuture.completedFuture(supplier.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        if (!(command instanceof PluginCommand)) {
+            throw new IllegalStateException("cannot schedule tasks for " + command + " since it has no plugin");
+        }
+
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Bukkit.getScheduler().runTask(((PluginCommand) command).getPlugin(), () -> {
+            try {
+                result.complete(supplier.get());
+            } catch (RuntimeException e) {
+                result.completeExceptionally(e);
+            }
+        });
+
+        return result;
+    }
 }
@@ -0,0 +1,58 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.lang.reflect.Method;
+
+/**
+ * Plain Java access to a command class, generated at compile time by the {@code command-builder-processor} annotation
+ * processor so that registering and running the command needs as little reflection as possible.
+ *
+ * A dispatcher for {@code com.example.Outer$Inner} is named {@code com.example.Outer_Inner_CommandDispatcher}, and is
+ * found by {@link AutoCommandBuilder}, {@link CommandBuilder#infer(Object)} and {@link ReflectionCommandCallback}
+ * automatically. Classes without one, or whose dispatcher can't do something because a member is private, fall back to
+ * reflection. This is not intended to be implemented by hand.
+ */
+public interface CommandDispatcher {
+
+    /**
+     * The class this dispatcher was generated for.
+     */
+    Class<?> getCommandClass();
+
+    /**
+     * The method annotated with {@link ExecuteCommand} which instances of the command class run, or null if it has
+     * none.
+     */
+    Method getExecuteMethod();
+
+    /**
+     * Whether {@link #newInstance(AutoCommandContext)} is supported.
+     */
+    boolean isInstantiable();
+
+    /**
+     * Create an instance of the command class as {@link AutoCommand#factoryMethod()} or
+     * {@link AutoSubCommand#factoryMethod()} would.
+     *
+     * @throws UnsupportedOperationException if the dispatcher is not instantiable
+     * @throws Throwable anything thrown by the constructor or factory method
+     */
+    Object newInstance(AutoCommandContext context) throws Throwable;
+
+    /**
+     * Whether {@link #execute(Object, Object[], long[])} is supported.
+     */
+    boolean isExecutable();
+
+    /**
+     * Call the {@link #getExecuteMethod()} of an instance directly.
+     *
+     * Each primitive parameter is read from the same index of {@code primitives}, holding integral values and chars as
+     * themselves, booleans as one or zero, floats as {@link Float#floatToRawIntBits(float)} and doubles as
+     * {@link Double#doubleToRawLongBits(double)}. All other parameters are read from {@code arguments}, which must
+     * already have the types of the method's parameters, with the variadic values as a typed array.
+     *
+     * @throws UnsupportedOperationException if the dispatcher is not executable
+     * @throws Throwable anything thrown by the method
+     */
+    void execute(Object instance, Object[] arguments, long[] primitives) throws Throwable;
+}
@@ -0,0 +1,74 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+
+import java.lang.reflect.Method;
+import java.util.Optional;
+import java.util.logging.Level;
+
+/**
+ * Finds the generated {@link CommandDispatcher} of command classes, remembering the result for each class.
+ */
+@Log
+@UtilityClass
+/* package-private */ class CommandDispatchers {
+
+    private final String SUFFIX = "_CommandDispatcher";
+
+    private final ClassValue<Optional<CommandDispatcher>> dispatchers = new ClassValue<>() {
+        @Override
+        protected Optional<CommandDispatcher> computeValue(Class<?> cls) {
+            return load(cls);
+        }
+    };
+
+    public Optional<CommandDispatcher> get(Class<?> cls) {
+        return dispatchers.get(cls);
+    }
+
+    /**
+     * Find the {@link ExecuteCommand} method of a class, using its dispatcher to skip searching the class hierarchy if
+     * it has one.
+     */
+    public Method getExecuteMethod(Class<?> cls) {
+        return get(cls)
+                .map(CommandDispatcher::getExecuteMethod)
+                .orElseGet(() -> ArgumentInference.getMethodByAnnotation(ExecuteCommand.class, cls, cls));
+    }
+
+    private Optional<CommandDispatcher> load(Class<?> cls) {
+        if (cls.isArray() || cls.isPrimitive() || cls.isAnonymousClass() || cls.isLocalClass()) {
+            return Optional.empty();
+        }
+
+        String packageName = cls.getPackageName();
+        String simpleBinaryName = packageName.isEmpty() ? cls.getName() : cls.getName().substring(packageName.length() + 1);
+        String dispatcherName = (packageName.isEmpty() ? "" : packageName + ".") + simpleBinaryName.replace('$', '_')
+                + SUFFIX;
+
+        Class<?> dispatcherClass;
+        try {
+            dispatcherClass = Class.forName(dispatcherName, true, cls.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return Optional.empty();
+        } catch (LinkageError e) {
+            log.log(Level.WARNING, "Could not load command dispatcher " + dispatcherName, e);
+            return Optional.empty();
+        }
+
+        try {
+            CommandDispatcher dispatcher = (CommandDispatcher) dispatcherClass.getConstructor().newInstance();
+
+            if (dispatcher.getCommandClass() != cls) {
+                log.warning(dispatcherName + " was not generated for " + cls);
+                return Optional.empty();
+            }
+
+            return Optional.of(dispatcher);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            log.log(Level.WARNING, "Could not create command dispatcher " + dispatcherName, e);
+            return Optional.empty();
+        }
+    }
+}
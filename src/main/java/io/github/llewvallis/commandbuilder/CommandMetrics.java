@@ -0,0 +1,62 @@
+package io.github.llewvallis.commandbuilder;
+
+/**
+ * Receives the outcome and timings of every command run through this library.
+ *
+ * Metrics are installed globally with {@link #setGlobal(CommandMetrics)}, and can be installed or swapped at any time
+ * since commands look them up on each invocation. Until then {@link #NONE} is used, which commands recognise and skip
+ * timing altogether for. Implementations are called on whichever thread runs the command, often the server's main
+ * thread, or on the thread an asynchronous callback finished on, so they should be cheap and must be thread safe.
+ * {@link StripedCommandMetrics} is a ready made implementation.
+ *
+ * Durations are in nanoseconds. The parse phase covers matching the arguments to the command's parsers, and the
+ * callback phase covers running the command's callback, which for asynchronous callbacks only includes handing them to
+ * their executor. Asynchronous callbacks are still recorded once they finish though, so that an invalid argument they
+ * read lazily is recorded as a parse failure. A command whose callback throws, or whose asynchronous callback is
+ * cancelled before it finishes, is not recorded. Allocated bytes are those allocated by the running thread over both
+ * phases, or -1 if allocations aren't being recorded.
+ */
+public interface CommandMetrics {
+
+    /**
+     * Metrics which record nothing.
+     */
+    CommandMetrics NONE = new CommandMetrics() {};
+
+    /**
+     * Get the metrics which commands report to.
+     */
+    static CommandMetrics getGlobal() {
+        return MetricsSupport.getGlobal();
+    }
+
+    /**
+     * Set the metrics which commands report to, or {@link #NONE} to stop recording.
+     */
+    static void setGlobal(CommandMetrics metrics) {
+        MetricsSupport.setGlobal(metrics);
+    }
+
+    /**
+     * Whether allocated bytes should be measured, which requires a JVM supporting
+     * {@code com.sun.management.ThreadMXBean} and costs a little more per invocation.
+     */
+    default boolean isRecordingAllocations() {
+        return false;
+    }
+
+    /**
+     * Record a command which was parsed and run. A composite command run without arguments is recorded with a parse
+     * time of zero.
+     */
+    default void recordExecution(CommandPath path, long parseNanos, long callbackNanos, long allocatedBytes) { }
+
+    /**
+     * Record a command which could not be run because its arguments were invalid.
+     *
+     * This includes a callback which read an invalid variadic argument through {@link VariadicArguments}, in which
+     * case the parse time also covers the callback.
+     */
+    default void recordParseFailure(CommandPath path, ParseFailureReason reason, long parseNanos,
+                                    long allocatedBytes) { }
+}
@@ -0,0 +1,70 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.Getter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The name of a command followed by the names of the subcommands leading to a leaf, such as {@code /team invite}.
+ *
+ * Paths are interned, so the same path is always the same instance and can be used as a key without building a string
+ * on each invocation. Subcommands are named by their {@link SubCommand#getName() canonical names} rather than by the
+ * alias the sender typed.
+ */
+public final class CommandPath {
+
+    private static final Map<String, CommandPath> roots = new ConcurrentHashMap<>();
+
+    /**
+     * The path this is a subcommand of, or null for a top level command.
+     */
+    @Getter
+    private final CommandPath parent;
+
+    /**
+     * The last name in the path.
+     */
+    @Getter
+    private final String name;
+
+    private final String string;
+    private final Map<String, CommandPath> children = new ConcurrentHashMap<>();
+
+    private CommandPath(CommandPath parent, String name) {
+        this.parent = parent;
+        this.name = name;
+        string = parent == null ? name : parent.string + " " + name;
+    }
+
+    /**
+     * The path of a top level command.
+     */
+    public static CommandPath of(String commandName) {
+        CommandPath path = roots.get(commandName);
+        return path != null ? path : roots.computeIfAbsent(commandName, name -> new CommandPath(null, name));
+    }
+
+    /**
+     * The path of a subcommand of this path.
+     */
+    public CommandPath child(String subCommandName) {
+        CommandPath path = children.get(subCommandName);
+        return path != null ? path : children.computeIfAbsent(subCommandName, name -> new CommandPath(this, name));
+    }
+
+    /**
+     * The number of names in the path, which is one for a top level command.
+     */
+    public int getDepth() {
+        return parent == null ? 1 : parent.getDepth() + 1;
+    }
+
+    /**
+     * The names in the path separated by spaces.
+     */
+    @Override
+    public String toString() {
+        return string;
+    }
+}
@@ -0,0 +1,121 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.command.Command;
+
+import java.util.*;
+
+/**
+ * The parsed prefix of the last command a sender tab completed, used by {@link BuiltExecutor} so that each keystroke
+ * only parses the arguments which changed since the previous one.
+ *
+ * The session records the parser reached and the number of parsed values after each complete argument, so it can be
+ * rewound to any earlier argument when the sender edits the command. Parses which failed are also remembered so that
+ * retyping a bad argument doesn't run the parser again.
+ */
+/* package-private */ final class CompletionSession {
+
+    private static final int MAX_FAILED_PARSES = 64;
+
+    private Object owner = null;
+    private Command command = null;
+    private String alias = null;
+
+    private final List<String> prefix = new ArrayList<>();
+    private final List<Object> parsedValues = new ArrayList<>();
+
+    private int[] parserIndexAfter = new int[8];
+    private int[] valueCountAfter = new int[8];
+
+    private final Set<FailedParse> failedParses = new HashSet<>();
+
+    /* package-private */ long lastUsed;
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class FailedParse {
+
+        private final int parserIndex;
+        private final int position;
+        private final String argument;
+    }
+
+    /**
+     * Rewind the session to the longest prefix it shares with the provided arguments, discarding it entirely if it
+     * belonged to a different command.
+     *
+     * @return the number of leading arguments which have already been parsed
+     */
+    /* package-private */ int rewind(Object owner, Command command, String alias, List<String> argumentStrings,
+                                     int prefixLength) {
+        if (this.owner != owner || this.command != command || !Objects.equals(this.alias, alias)) {
+            this.owner = owner;
+            this.command = command;
+            this.alias = alias;
+
+            prefix.clear();
+            parsedValues.clear();
+            failedParses.clear();
+
+            return 0;
+        }
+
+        int shared = 0;
+        while (shared < prefix.size() && shared < prefixLength && prefix.get(shared).equals(argumentStrings.get(shared))) {
+            shared++;
+        }
+
+        prefix.subList(shared, prefix.size()).clear();
+        parsedValues.subList(getValueCount(), parsedValues.size()).clear();
+
+        return shared;
+    }
+
+    /**
+     * The index of the parser which will handle the next argument, or the parser count once only the variadic parser
+     * remains.
+     */
+    /* package-private */ int getParserIndex() {
+        return prefix.isEmpty() ? 0 : parserIndexAfter[prefix.size() - 1];
+    }
+
+    /* package-private */ void addValue(Object value) {
+        parsedValues.add(value);
+    }
+
+    /**
+     * Record that an argument has been fully consumed, leaving the given parser to handle the next one.
+     */
+    /* package-private */ void pushArgument(String argument, int nextParserIndex) {
+        int index = prefix.size();
+        if (index == parserIndexAfter.length) {
+            parserIndexAfter = Arrays.copyOf(parserIndexAfter, index * 2);
+            valueCountAfter = Arrays.copyOf(valueCountAfter, index * 2);
+        }
+
+        prefix.add(argument);
+        parserIndexAfter[index] = nextParserIndex;
+        valueCountAfter[index] = parsedValues.size();
+    }
+
+    /* package-private */ List<Object> getParsedValues() {
+        return Collections.unmodifiableList(parsedValues);
+    }
+
+    /* package-private */ boolean hasFailed(int parserIndex, int position, String argument) {
+        return failedParses.contains(new FailedParse(parserIndex, position, argument));
+    }
+
+    /* package-private */ void recordFailure(int parserIndex, int position, String argument) {
+        if (failedParses.size() >= MAX_FAILED_PARSES) {
+            failedParses.clear();
+        }
+
+        failedParses.add(new FailedParse(parserIndex, position, argument));
+    }
+
+    private int getValueCount() {
+        return prefix.isEmpty() ? 0 : valueCountAfter[prefix.size() - 1];
+    }
+}
@@ -0,0 +1,56 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.command.CommandSender;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds the {@link CompletionSession} of each sender.
+ *
+ * Sessions are dropped by {@link QuitListener} when a player quits, and otherwise once they have been idle for a
+ * while. Senders are held weakly, so a session never keeps a sender alive.
+ */
+@UtilityClass
+/* package-private */ class CompletionSessions {
+
+    private final long IDLE_TIMEOUT = TimeUnit.MINUTES.toNanos(5);
+
+    private final Map<CommandSender, CompletionSession> sessions = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile long lastSweep = System.nanoTime();
+
+    /**
+     * Get the session for a sender, starting a new one if it has none or its last one expired.
+     */
+    public CompletionSession get(CommandSender sender) {
+        long now = System.nanoTime();
+        sweep(now);
+
+        CompletionSession session = sessions.get(sender);
+        if (session == null || now - session.lastUsed > IDLE_TIMEOUT) {
+            session = new CompletionSession();
+            sessions.put(sender, session);
+        }
+
+        session.lastUsed = now;
+        return session;
+    }
+
+    public void evict(CommandSender sender) {
+        sessions.remove(sender);
+    }
+
+    private void sweep(long now) {
+        if (now - lastSweep < IDLE_TIMEOUT) {
+            return;
+        }
+
+        lastSweep = now;
+        synchronized (sessions) {
+            sessions.values().removeIf(session -> now - session.lastUsed > IDLE_TIMEOUT);
+        }
+    }
+}
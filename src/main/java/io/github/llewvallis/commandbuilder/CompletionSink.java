@@ -0,0 +1,37 @@
+package io.github.llewvallis.commandbuilder;
+
+/**
+ * Receives tab completion candidates from an {@link ArgumentParser}, keeping only the most relevant ones.
+ *
+ * @see ArgumentParser#completeInto(java.util.List, String, int, CommandContext, CompletionSink)
+ */
+public interface CompletionSink {
+
+    /**
+     * The partially completed argument.
+     *
+     * Candidates which don't start with this, ignoring case, are discarded, so parsers with many candidates should
+     * avoid producing them in the first place.
+     */
+    String getPrefix();
+
+    /**
+     * The maximum number of candidates which will be kept.
+     */
+    int getLimit();
+
+    /**
+     * Offer a candidate with the default relevance of zero.
+     */
+    default void accept(String candidate) {
+        accept(candidate, 0);
+    }
+
+    /**
+     * Offer a candidate with a relevance score.
+     *
+     * Candidates with higher scores are kept in preference to those with lower scores, and are shown first. Candidates
+     * with equal scores are ordered alphabetically.
+     */
+    void accept(String candidate, int relevance);
+}
@@ -3,6 +3,7 @@ package io.github.llewvallis.commandbuilder;
 import lombok.*;
 import lombok.extern.java.Log;
 import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.ComponentBuilder;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
@@ -10,6 +11,8 @@ import org.bukkit.command.TabExecutor;
 import org.bukkit.plugin.PluginDescriptionFile;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 import java.util.function.Consumer;
 
 /**
@@ -18,13 +21,32 @@ import java.util.function.Consumer;
 @Log
 public class CompositeCommandBuilder {
 
+    private static final int MAX_GENERAL_HELP_PAGES = 256;
+
     /* package-private */ final Map<String, SubCommand> subCommands = new HashMap<>();
 
     private boolean constructed = false;
+    private SubCommandPermissions permissions = null;
+    private SubCommandRouter router = null;
+
+    // Rendered help pages, which can't go stale since the subcommands and theme are fixed once built
+    private final Map<PermissionSignature, BaseComponent[]> generalHelpPages = new ConcurrentHashMap<>();
+    private final Map<String, BaseComponent[]> specificHelpPages = new ConcurrentHashMap<>();
 
     /* package-private */ HelpMessageTheme theme = new HelpMessageTheme();
     /* package-private */ Consumer<CommandSender> noArgsAction = this::showGeneralHelp;
     /* package-private */ Map<String, Object> metadata = new HashMap<>();
+    /* package-private */ Executor completionExecutor = TaskExecutors.direct();
+
+    /**
+     * Identifies the set of subcommands a sender may use, see {@link SubCommandPermissions#getSignature}.
+     */
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static final class PermissionSignature {
+
+        private final long[] bits;
+    }
 
     /**
      * Describes the coloring applied to the help message.
@@ -81,6 +103,20 @@ public class CompositeCommandBuilder {
         return this;
     }
 
+    /**
+     * Set the executor which subcommands' parsers complete on when completions are requested through
+     * {@link AsyncTabCompleter}, unless a subcommand sets its own with {@link CommandBuilder#completionExecutor}.
+     *
+     * Subcommands are still routed and their earlier arguments parsed on the requesting thread, since that checks
+     * permissions. Defaults to {@link TaskExecutors#direct()}. Nested composite commands inherit the executor of their
+     * parent.
+     */
+    public CompositeCommandBuilder completionExecutor(Executor executor) {
+        assertNotConstructed();
+        completionExecutor = executor;
+        return this;
+    }
+
     /**
      * Override the behaviour for when the command is invoked without arguments.
      */
@@ -102,6 +138,8 @@ public class CompositeCommandBuilder {
 
     /**
      * Create an executor which handles delegating to subcommands.
+     *
+     * The executor also implements {@link AsyncTabCompleter}.
      */
     public TabExecutor build() {
         assertNotConstructed();
@@ -110,6 +148,8 @@ public class CompositeCommandBuilder {
             command(new HelpCommandImpl(this));
         }
 
+        permissions = new SubCommandPermissions(subCommands, metadata);
+        router = SubCommandRouter.of(subCommands.values(), metadata);
         constructed = true;
         return new CompositeCommandImpl(this);
     }
@@ -120,6 +160,7 @@ public class CompositeCommandBuilder {
      */
     public TabExecutor build(PluginCommand command) {
         TabExecutor executor = build();
+        QuitListener.register(command.getPlugin());
 
         command.setExecutor(executor);
         command.setTabCompleter(executor);
@@ -159,9 +200,27 @@ public class CompositeCommandBuilder {
     }
 
     /* package-private */ void showGeneralHelp(CommandSender sender) {
-        ComponentBuilder message = createHelpHeader("all");
+        long[] signature = permissions.getSignature(sender);
+
+        if (generalHelpPages.size() >= MAX_GENERAL_HELP_PAGES) {
+            generalHelpPages.clear();
+        }
+
+        BaseComponent[] page = generalHelpPages.computeIfAbsent(new PermissionSignature(signature),
+                key -> renderGeneralHelp(permissions.permitted(signature)));
 
-        Collection<SubCommand> permittedSubCommands = permittedSubCommands(sender).values();
+        sender.spigot().sendMessage(page);
+    }
+
+    /* package-private */ void showSpecificHelp(CommandSender sender, SubCommand subCommand) {
+        BaseComponent[] page = specificHelpPages.computeIfAbsent(subCommand.getName(),
+                key -> renderSpecificHelp(subCommand));
+
+        sender.spigot().sendMessage(page);
+    }
+
+    private BaseComponent[] renderGeneralHelp(List<SubCommand> permittedSubCommands) {
+        ComponentBuilder message = createHelpHeader("all");
 
         permittedSubCommands.stream()
                 .filter(SubCommand::isNested)
@@ -182,10 +241,10 @@ public class CompositeCommandBuilder {
                     message.append("\n\u2514 " + shortenDescription(description)).color(theme.textColor);
                 });
 
-        sender.spigot().sendMessage(message.create());
+        return message.create();
     }
 
-    /* package-private */ void showSpecificHelp(CommandSender sender, SubCommand subCommand) {
+    private BaseComponent[] renderSpecificHelp(SubCommand subCommand) {
         ComponentBuilder message = createHelpHeader(subCommand.getName());
 
         String description = subCommand.getResolvedDescription(metadata);
@@ -198,7 +257,13 @@ public class CompositeCommandBuilder {
             message.append(usage).color(theme.textColor);
         }
 
-        sender.spigot().sendMessage(message.create());
+        List<String> aliases = subCommand.getResolvedAliases(metadata);
+        if (!aliases.isEmpty()) {
+            message.append("\nAliases: ").color(theme.labelColor);
+            message.append(String.join(", ", aliases)).color(theme.textColor);
+        }
+
+        return message.create();
     }
 
     private ComponentBuilder createHelpHeader(String topic) {
@@ -222,14 +287,36 @@ public class CompositeCommandBuilder {
         }
     }
 
-    /* package-private */ Map<String, SubCommand> permittedSubCommands(CommandSender sender) {
-        Map<String, SubCommand> permittedSubCommands = new HashMap<>(subCommands);
-        permittedSubCommands.values().removeIf(subCommand ->
-                subCommand.getResolvedPermission(metadata)
-                        .map(perm -> !sender.hasPermission(perm))
-                        .orElse(false)
-        );
-        return permittedSubCommands;
+    /**
+     * The subcommands a sender may use ordered by name, for listing in help and completions.
+     *
+     * The sender's permissions may be cached, see {@link PermissionCache}, so use {@link #isPermitted} before running a
+     * subcommand.
+     */
+    /* package-private */ List<SubCommand> permittedSubCommands(CommandSender sender) {
+        return permissions.permitted(sender);
+    }
+
+    /**
+     * Find the subcommand a label refers to by name, alias or unambiguous prefix, ignoring case.
+     *
+     * Prefixes only need to be unambiguous amongst the subcommands listed for the sender, but the permission of the
+     * result isn't checked, so use {@link #isPermitted} before running it.
+     */
+    /* package-private */ SubCommand route(CommandSender sender, String label) {
+        return router.route(label, subCommand -> isListed(sender, subCommand.getName()));
+    }
+
+    /* package-private */ List<String> completeSubCommandName(CommandSender sender, String partialName) {
+        return router.complete(partialName, name -> isListed(sender, name));
+    }
+
+    /* package-private */ boolean isListed(CommandSender sender, String name) {
+        return permissions.isListed(sender, name);
+    }
+
+    /* package-private */ boolean isPermitted(CommandSender sender, SubCommand subCommand) {
+        return permissions.isPermitted(sender, subCommand);
     }
 
     private void assertNotConstructed() {
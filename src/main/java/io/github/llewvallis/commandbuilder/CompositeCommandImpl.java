@@ -6,15 +6,12 @@ import org.bukkit.Bukkit;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandSender;
 import org.bukkit.command.PluginCommand;
-import org.bukkit.command.TabExecutor;
 
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
-/* package-private */ class CompositeCommandImpl implements TabExecutor {
+/* package-private */ class CompositeCommandImpl implements ArgumentWindowExecutor {
 
     private CompositeCommandBuilder compositeCommandBuilder;
 
@@ -23,50 +20,92 @@ import java.util.stream.Collectors;
     }
 
     @Override
-    public boolean onCommand(CommandSender sender, Command command, String alias, String[] argumentStrings) {
-        if (argumentStrings.length == 0) {
+    public boolean onCommand(CommandSender sender, Command command, String alias, ArgumentWindow argumentStrings,
+                             CommandPath path) {
+        CommandMetrics metrics = MetricsSupport.getGlobal();
+        if (metrics != CommandMetrics.NONE) {
+            return onMeasuredCommand(metrics, sender, command, argumentStrings, MetricsSupport.getPath(command, path));
+        }
+
+        if (argumentStrings.size() == 0) {
+            compositeCommandBuilder.noArgsAction.accept(sender);
+            return true;
+        }
+
+        String subCommandName = argumentStrings.get(0);
+        SubCommand subCommand = getPermittedSubCommand(sender, subCommandName);
+
+        if (subCommand != null) {
+            ArgumentWindow subCommandArguments = argumentStrings.shift();
+
+            return subCommand.getOrCreateExecutor(compositeCommandBuilder.metadata)
+                    .onCommand(sender, command, subCommandName, subCommandArguments, null);
+        } else {
+            sendUnknownSubCommand(sender);
+            return true;
+        }
+    }
+
+    /**
+     * Run the command as {@link #onCommand} does, recording it to the metrics unless it is passed on to a subcommand,
+     * which is handed its own path to record itself under.
+     */
+    private boolean onMeasuredCommand(CommandMetrics metrics, CommandSender sender, Command command,
+                                      ArgumentWindow argumentStrings, CommandPath path) {
+        long allocationStart = MetricsSupport.allocatedBytes(metrics);
+        long start = System.nanoTime();
+
+        if (argumentStrings.size() == 0) {
             compositeCommandBuilder.noArgsAction.accept(sender);
+
+            long callbackNanos = System.nanoTime() - start;
+            metrics.recordExecution(path, 0, callbackNanos, MetricsSupport.allocatedBytesSince(allocationStart));
             return true;
         }
 
-        Map<String, SubCommand> permittedSubCommands = compositeCommandBuilder.permittedSubCommands(sender);
+        String subCommandName = argumentStrings.get(0);
+        SubCommand subCommand = getPermittedSubCommand(sender, subCommandName);
 
-        String subCommandName = argumentStrings[0];
-        if (permittedSubCommands.containsKey(subCommandName)) {
-            String[] subCommandArguments = Arrays.copyOfRange(argumentStrings, 1, argumentStrings.length);
-            SubCommand subCommand = permittedSubCommands.get(subCommandName);
+        if (subCommand != null) {
+            ArgumentWindow subCommandArguments = argumentStrings.shift();
 
             return subCommand.getOrCreateExecutor(compositeCommandBuilder.metadata)
-                    .onCommand(sender, command, subCommandName, subCommandArguments);
+                    .onCommand(sender, command, subCommandName, subCommandArguments, path.child(subCommand.getName()));
         } else {
-            TextComponent errorMessage = new TextComponent("That subcommand does not exist");
-            errorMessage.setColor(ChatColor.RED);
-            sender.spigot().sendMessage(errorMessage);
+            long parseNanos = System.nanoTime() - start;
+            metrics.recordParseFailure(path, ParseFailureReason.UNKNOWN_SUBCOMMAND, parseNanos,
+                    MetricsSupport.allocatedBytesSince(allocationStart));
 
+            sendUnknownSubCommand(sender);
             return true;
         }
     }
 
+    private void sendUnknownSubCommand(CommandSender sender) {
+        TextComponent errorMessage = new TextComponent("That subcommand does not exist");
+        errorMessage.setColor(ChatColor.RED);
+        sender.spigot().sendMessage(errorMessage);
+    }
+
     @Override
-    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias,
+                                      ArgumentWindow argumentStrings) {
         // Shouldn't happen, but handle it nicely just in-case
-        if (argumentStrings.length == 0) {
+        if (argumentStrings.size() == 0) {
             Bukkit.getLogger().warning("received zero length argument list when tab completing '" + alias + "'");
             return Collections.emptyList();
         }
 
-        String subCommandName = argumentStrings[0];
-        Map<String, SubCommand> permittedSubCommands = compositeCommandBuilder.permittedSubCommands(sender);
+        String subCommandName = argumentStrings.get(0);
 
-        if (argumentStrings.length == 1) {
-            return permittedSubCommands.keySet().stream()
-                    .filter(subCommand -> subCommand.toLowerCase().startsWith(subCommandName.toLowerCase()))
-                    .collect(Collectors.toList());
+        if (argumentStrings.size() == 1) {
+            return completeSubCommandName(sender, subCommandName);
         }
 
-        if (permittedSubCommands.containsKey(subCommandName)) {
-            String[] subCommandArguments = Arrays.copyOfRange(argumentStrings, 1, argumentStrings.length);
-            SubCommand subCommand = permittedSubCommands.get(subCommandName);
+        SubCommand subCommand = getPermittedSubCommand(sender, subCommandName);
+
+        if (subCommand != null) {
+            ArgumentWindow subCommandArguments = argumentStrings.shift();
 
             return subCommand.getOrCreateExecutor(compositeCommandBuilder.metadata)
                     .onTabComplete(sender, command, subCommandName, subCommandArguments);
@@ -74,4 +113,58 @@ import java.util.stream.Collectors;
             return Collections.emptyList();
         }
     }
+
+    @Override
+    public CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                              ArgumentWindow argumentStrings,
+                                                              Executor inheritedExecutor) {
+        // Shouldn't happen, but handle it nicely just in-case
+        if (argumentStrings.size() == 0) {
+            Bukkit.getLogger().warning("received zero length argument list when tab completing '" + alias + "'");
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        // Routing checks permissions, so it stays on the calling thread and only the subcommand's completions are
+        // handed to the executor
+        String subCommandName = argumentStrings.get(0);
+
+        if (argumentStrings.size() == 1) {
+            return CompletableFuture.completedFuture(completeSubCommandName(sender, subCommandName));
+        }
+
+        SubCommand subCommand = getPermittedSubCommand(sender, subCommandName);
+
+        if (subCommand != null) {
+            ArgumentWindow subCommandArguments = argumentStrings.shift();
+            return subCommand.getOrCreateExecutor(compositeCommandBuilder.metadata)
+                    .onTabCompleteAsync(sender, command, subCommandName, subCommandArguments,
+                            compositeCommandBuilder.completionExecutor);
+        } else {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+    }
+
+    @Override
+    public void preload() {
+        for (SubCommand subCommand : compositeCommandBuilder.subCommands.values()) {
+            subCommand.getOrCreateExecutor(compositeCommandBuilder.metadata).preload();
+        }
+    }
+
+    private List<String> completeSubCommandName(CommandSender sender, String partialName) {
+        return compositeCommandBuilder.completeSubCommandName(sender, partialName);
+    }
+
+    /**
+     * Find a subcommand by label, checking only its own permission.
+     */
+    private SubCommand getPermittedSubCommand(CommandSender sender, String label) {
+        SubCommand subCommand = compositeCommandBuilder.route(sender, label);
+
+        if (subCommand == null || !compositeCommandBuilder.isPermitted(sender, subCommand)) {
+            return null;
+        }
+
+        return subCommand;
+    }
 }
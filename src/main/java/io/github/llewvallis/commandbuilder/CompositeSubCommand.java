@@ -1,5 +1,6 @@
 package io.github.llewvallis.commandbuilder;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -25,6 +26,16 @@ public abstract class CompositeSubCommand {
         throw new InferFromMetadataException();
     }
 
+    /**
+     * Other labels which can be used to run the subcommand, matched ignoring case like the name.
+     *
+     * If this throws an {@link InferFromMetadataException} the aliases will be fetched from the
+     * {@link CompositeCommandBuilder}'s metadata, defaulting to none.
+     */
+    public List<String> getAliases() {
+        throw new InferFromMetadataException();
+    }
+
     /**
      * An optional permission which will additionally be required for the subcommand and its children.
      *
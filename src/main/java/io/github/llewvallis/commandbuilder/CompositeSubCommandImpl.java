@@ -1,14 +1,13 @@
 package io.github.llewvallis.commandbuilder;
 
-import org.bukkit.command.TabExecutor;
-
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
 /* package-private */ class CompositeSubCommandImpl extends SubCommand {
 
     private final CompositeSubCommand subCommand;
-    private final TabExecutor executor;
+    private final ArgumentWindowExecutor executor;
 
     public CompositeSubCommandImpl(CompositeCommandBuilder parent, CompositeSubCommand subCommand) {
         this.subCommand = subCommand;
@@ -16,14 +15,15 @@ import java.util.Optional;
         CompositeCommandBuilder builder = new CompositeCommandBuilder();
 
         builder.helpMessageTheme(parent.theme);
+        builder.completionExecutor(parent.completionExecutor);
         builder.metadata = CompositeCommandBuilder.getSubCommandMetadata(parent.metadata, getName());
 
         subCommand.configure(builder);
-        executor = builder.build();
+        executor = (ArgumentWindowExecutor) builder.build();
     }
 
     @Override
-    /* package-private */ TabExecutor getOrCreateExecutor(Map<String, Object> metadata) {
+    /* package-private */ ArgumentWindowExecutor getOrCreateExecutor(Map<String, Object> metadata) {
         return executor;
     }
 
@@ -42,6 +42,11 @@ import java.util.Optional;
         return subCommand.getDescription();
     }
 
+    @Override
+    public List<String> getAliases() {
+        return subCommand.getAliases();
+    }
+
     @Override
     public Optional<String> getPermission() {
         return subCommand.getPermission();
@@ -7,13 +7,17 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 
-import java.util.HashMap;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 
 /**
  * Provides default {@link ArgumentParser}s for command arguments that don't have a parser explicitly set via inference
  * annotations.
+ *
+ * Providers are copy-on-write, so every {@link CommandBuilder} can fork the global provider cheaply, and lookups are
+ * safe while another thread registers parsers.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class DefaultInferenceProvider {
@@ -32,44 +36,83 @@ public class DefaultInferenceProvider {
                 .register(int.class, new IntegerArgument());
     }
 
-    private Map<Class<?>, ArgumentParser<?>> parsers = new HashMap<>();
+    private volatile Registrations registrations = new Registrations(new LinkedHashMap<>());
 
     /**
      * Associate a class with an {@link ArgumentParser}.
      *
-     * All parents of the provided class that don't have an association will also be associated with the parser.
+     * All superclasses and interfaces of the provided class that don't have an association will also be associated
+     * with the parser, taking the parser of the earliest registered subtype.
      */
-    public DefaultInferenceProvider register(Class<?> cls, ArgumentParser<?> parser) {
+    public synchronized DefaultInferenceProvider register(Class<?> cls, ArgumentParser<?> parser) {
         if (cls == void.class) {
             throw new IllegalArgumentException("cannot register void");
         }
 
+        Map<Class<?>, ArgumentParser<?>> parsers = new LinkedHashMap<>(registrations.parsers);
         parsers.put(cls, parser);
 
-        for (
-                Class<?> parent = cls.getSuperclass();
-                parent != null && !parsers.containsKey(parent);
-                parent = parent.getSuperclass()
-        ) {
-            parsers.put(parent, parser);
-        }
-
         if (cls.isPrimitive()) {
-            register(ReflectionUtil.boxedType(cls), parser);
+            parsers.put(ReflectionUtil.boxedType(cls), parser);
         }
 
+        registrations = new Registrations(parsers);
         return this;
     }
 
     /* package-private */ <T> Optional<ArgumentParser<T>> getForType(Class<T> cls) {
         @SuppressWarnings("unchecked")
-        Optional<ArgumentParser<T>> result = Optional.ofNullable((ArgumentParser<T>) parsers.get(cls));
+        Optional<ArgumentParser<T>> result = (Optional<ArgumentParser<T>>) (Optional<?>) registrations.resolved.get(cls);
         return result;
     }
 
+    /**
+     * Create a provider with the same associations as this one, which can then be changed independently.
+     *
+     * The registrations are immutable and replaced as a whole by {@link #register(Class, ArgumentParser)}, so the fork
+     * shares them, along with the lookups which have already been resolved, until either provider is changed.
+     */
     /* package-private */ DefaultInferenceProvider fork() {
         DefaultInferenceProvider result = new DefaultInferenceProvider();
-        result.parsers = new HashMap<>(parsers);
+        result.registrations = registrations;
         return result;
     }
+
+    /**
+     * An immutable snapshot of the registered parsers, remembering the parser resolved for each type looked up.
+     */
+    private static final class Registrations {
+
+        private final Map<Class<?>, ArgumentParser<?>> parsers;
+
+        private final ClassValue<Optional<ArgumentParser<?>>> resolved = new ClassValue<>() {
+            @Override
+            protected Optional<ArgumentParser<?>> computeValue(Class<?> type) {
+                return resolve(type);
+            }
+        };
+
+        private Registrations(Map<Class<?>, ArgumentParser<?>> parsers) {
+            this.parsers = Collections.unmodifiableMap(parsers);
+        }
+
+        private Optional<ArgumentParser<?>> resolve(Class<?> type) {
+            ArgumentParser<?> parser = parsers.get(type);
+            if (parser != null) {
+                return Optional.of(parser);
+            }
+
+            if (type.isPrimitive()) {
+                return Optional.empty();
+            }
+
+            for (Map.Entry<Class<?>, ArgumentParser<?>> entry : parsers.entrySet()) {
+                if (type.isAssignableFrom(entry.getKey())) {
+                    return Optional.of(entry.getValue());
+                }
+            }
+
+            return Optional.empty();
+        }
+    }
 }
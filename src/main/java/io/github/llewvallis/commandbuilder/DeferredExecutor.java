@@ -0,0 +1,97 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.RequiredArgsConstructor;
+import lombok.Synchronized;
+import lombok.extern.java.Log;
+import net.md_5.bungee.api.ChatColor;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.command.Command;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.TabExecutor;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+
+/**
+ * Registered in place of an auto command whose name is known up front, creating the real executor when the command is
+ * first run or tab completed.
+ *
+ * If the executor can't be created, the failure is logged once and the command reports an error from then on.
+ */
+@Log
+@RequiredArgsConstructor
+/* package-private */ class DeferredExecutor implements TabExecutor, AsyncTabCompleter {
+
+    private final String name;
+    private final Supplier<TabExecutor> loader;
+
+    private volatile TabExecutor executor = null;
+    private volatile boolean failed = false;
+
+    @Override
+    public boolean onCommand(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+        TabExecutor executor = getExecutor();
+
+        if (executor == null) {
+            TextComponent errorMessage = new TextComponent("That command could not be loaded");
+            errorMessage.setColor(ChatColor.RED);
+            sender.spigot().sendMessage(errorMessage);
+
+            return true;
+        }
+
+        return executor.onCommand(sender, command, alias, argumentStrings);
+    }
+
+    @Override
+    public List<String> onTabComplete(CommandSender sender, Command command, String alias, String[] argumentStrings) {
+        TabExecutor executor = getExecutor();
+        return executor == null ? Collections.emptyList()
+                : executor.onTabComplete(sender, command, alias, argumentStrings);
+    }
+
+    @Override
+    public CompletableFuture<List<String>> onTabCompleteAsync(CommandSender sender, Command command, String alias,
+                                                              String[] argumentStrings) {
+        TabExecutor executor = getExecutor();
+
+        if (executor instanceof AsyncTabCompleter) {
+            return ((AsyncTabCompleter) executor).onTabCompleteAsync(sender, command, alias, argumentStrings);
+        } else {
+            return CompletableFuture.completedFuture(onTabComplete(sender, command, alias, argumentStrings));
+        }
+    }
+
+    /**
+     * Create the real executor ahead of time, along with the executors of its subcommands.
+     */
+    /* package-private */ void preload() {
+        TabExecutor executor = getExecutor();
+        if (executor instanceof ArgumentWindowExecutor) {
+            ((ArgumentWindowExecutor) executor).preload();
+        }
+    }
+
+    private TabExecutor getExecutor() {
+        TabExecutor result = executor;
+        return result != null || failed ? result : load();
+    }
+
+    @Synchronized
+    private TabExecutor load() {
+        if (executor == null && !failed) {
+            try {
+                executor = loader.get();
+            } catch (RuntimeException | LinkageError e) {
+                // Anything thrown by the command's own code is remembered too, rather than thrown on every use
+                failed = true;
+                log.log(Level.SEVERE, "Failed to load auto command " + name, e);
+            }
+        }
+
+        return executor;
+    }
+}
@@ -0,0 +1,23 @@
+package io.github.llewvallis.commandbuilder;
+
+/**
+ * An {@link ArgumentParser} which can produce doubles without boxing them.
+ *
+ * When a command is run, values from a parser like this are kept unboxed all the way to a {@code double} parameter or
+ * {@code double...} variadic parameter of an {@link ExecuteCommand} method, so long as the parser is not optional.
+ */
+public interface DoubleArgumentParser extends ArgumentParser<Double> {
+
+    /**
+     * Parse a command argument like {@link #parse(String, int, CommandContext)}, without boxing the result.
+     *
+     * @param position the index of the argument in relation to the entire command's arguments
+     * @throws ArgumentParseException if the value could not be parsed
+     */
+    double parseDouble(String argument, int position, CommandContext context) throws ArgumentParseException;
+
+    @Override
+    default Double parse(String argument, int position, CommandContext context) throws ArgumentParseException {
+        return parseDouble(argument, position, context);
+    }
+}
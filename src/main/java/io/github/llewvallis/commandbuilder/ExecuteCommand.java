@@ -11,4 +11,15 @@ import java.lang.annotation.Target;
  */
 @Target(ElementType.METHOD)
 @Retention(RetentionPolicy.RUNTIME)
-public @interface ExecuteCommand { }
+public @interface ExecuteCommand {
+
+    /**
+     * Whether the method should be invoked off the main thread.
+     *
+     * The command is still parsed on the thread it was sent from, and only the method itself is run on the executor
+     * provided to {@link ReflectionCommandCallback}. The method should use {@link CommandContext#getSenderSnapshot()}
+     * rather than reading from the sender directly, and {@link CommandContext#runOnMainThread(Runnable)} to touch the
+     * world. If the sender disconnects before the method finishes, its thread is interrupted.
+     */
+    boolean async() default false;
+}
@@ -22,6 +22,11 @@ import java.util.stream.Collectors;
         return "Show help for subcommands";
     }
 
+    @Override
+    public List<String> getAliases() {
+        return List.of();
+    }
+
     @Override
     public String getUsageMessage() {
         return "help [subcommand]";
@@ -32,11 +37,9 @@ import java.util.stream.Collectors;
         builder.argument(new ArgumentParser<SubCommand>() {
             @Override
             public SubCommand parse(String argument, int position, CommandContext context) throws ArgumentParseException {
-                SubCommand subCommand = compositeBuilder.subCommands.get(argument);
+                SubCommand subCommand = compositeBuilder.route(context.getSender(), argument);
 
-                if (subCommand == null || !subCommand.getResolvedPermission(compositeBuilder.metadata)
-                        .map(context.getSender()::hasPermission)
-                        .orElse(true)) {
+                if (subCommand == null || !compositeBuilder.isPermitted(context.getSender(), subCommand)) {
                     throw new ArgumentParseException("no such subcommand");
                 }
 
@@ -45,7 +48,7 @@ import java.util.stream.Collectors;
 
             @Override
             public Set<String> complete(List<Object> parsedArguments, String currentArgument, int position, CommandContext context) {
-                return HelpCommandImpl.this.compositeBuilder.permittedSubCommands(context.getSender()).values().stream()
+                return HelpCommandImpl.this.compositeBuilder.permittedSubCommands(context.getSender()).stream()
                         .map(SubCommand::getName)
                         .collect(Collectors.toSet());
             }
@@ -0,0 +1,83 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import lombok.extern.java.Log;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Reads the index of auto commands which the annotation processor writes to {@value #RESOURCE}, so that no class
+ * files need to be read or loaded to find them.
+ *
+ * Each line of the index describes one class as tab separated fields: {@code command} or {@code subcommand}, the binary
+ * name of the class, the binary name of its parent (empty for a command), its factory method and its
+ * {@link AutoCommand#name()}. Blank lines and lines starting with {@code #} are ignored.
+ */
+@Log
+@ToString
+@RequiredArgsConstructor
+/* package-private */ class IndexAutoCommandSource implements ScanningAutoCommandSource {
+
+    /* package-private */ static final String RESOURCE = "META-INF/command-builder/auto-commands";
+
+    @Getter
+    private final ClassLoader classLoader;
+
+    @Override
+    public List<ScannedCommandClass> scan() throws IOException {
+        List<ScannedCommandClass> result = new ArrayList<>();
+
+        Enumeration<URL> indexes = classLoader.getResources(RESOURCE);
+        while (indexes.hasMoreElements()) {
+            URL index = indexes.nextElement();
+
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(index.openStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank() || line.startsWith("#")) {
+                        continue;
+                    }
+
+                    ScannedCommandClass scannedClass = parseLine(line);
+                    if (scannedClass == null) {
+                        log.warning("Ignoring malformed line in " + index + ": " + line);
+                    } else {
+                        result.add(scannedClass);
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private ScannedCommandClass parseLine(String line) {
+        String[] fields = line.split("\t", -1);
+        if (fields.length != 5 || fields[1].isEmpty()) {
+            return null;
+        }
+
+        String className = fields[1];
+        String factoryMethod = fields[3];
+
+        switch (fields[0]) {
+            case "command":
+                String commandName = fields[4].isEmpty() ? null : fields[4];
+                return new ScannedCommandClass(className, false, null, factoryMethod, commandName);
+            case "subcommand":
+                return fields[2].isEmpty() ? null : new ScannedCommandClass(className, true, fields[2], factoryMethod, null);
+            default:
+                return null;
+        }
+    }
+}
@@ -2,53 +2,95 @@ package io.github.llewvallis.commandbuilder;
 
 import lombok.Cleanup;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.java.Log;
+import lombok.ToString;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.Enumeration;
-import java.util.HashSet;
-import java.util.Set;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Objects;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.logging.Level;
 import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
-@Log
+/**
+ * Scans the classes of a JAR file by reading their class files with {@link ClassFileScanner}, so only the classes
+ * which are auto commands are loaded. Entries are read and scanned in parallel, and the classes which are found are
+ * loaded without being initialized.
+ *
+ * If a {@link ScanCache} is given, the JAR is only scanned when it has changed since the cache was written. The classes
+ * are loaded with the given class loader, which is normally the one this library was loaded with.
+ */
+@ToString
 @RequiredArgsConstructor
-/* package-private */ class JarAutoCommandSource implements AutoCommandSource {
+/* package-private */ class JarAutoCommandSource implements ScanningAutoCommandSource {
 
     private final File file;
     private final Pattern pattern;
+    @ToString.Exclude
+    private final ScanCache cache;
+    @ToString.Exclude
+    private final ClassLoader classLoader;
 
+    /**
+     * Find the auto commands in the JAR whose names match the pattern.
+     */
     @Override
-    public Set<Class<?>> getClassesForScanning() {
-        try {
-            @Cleanup JarFile jarFile = new JarFile(file);
-
-            Set<Class<?>> classes = new HashSet<>();
-            for (Enumeration<JarEntry> entries = jarFile.entries(); entries.hasMoreElements(); ) {
-                JarEntry entry = entries.nextElement();
-                String entryName = entry.getName();
-
-                if (entryName.endsWith(".class")) {
-                    String className = entryName
-                            .substring(0, entryName.length() - ".class".length())
-                            .replace("/", ".");
-
-                    if (pattern.matcher(className).find()) {
-                        try {
-                            classes.add(Class.forName(className));
-                        } catch (ClassNotFoundException | NoClassDefFoundError ignored) {
-                        }
-                    }
-                }
-            }
-
-            return classes;
+    public List<ScannedCommandClass> scan() throws IOException {
+        if (cache == null) {
+            return scanJar();
+        }
+
+        ScanCache.Key key = new ScanCache.Key(file, pattern.pattern());
+
+        List<ScannedCommandClass> cachedClasses = cache.load(key);
+        if (cachedClasses != null) {
+            return cachedClasses;
+        }
+
+        List<ScannedCommandClass> scannedClasses = scanJar();
+        cache.store(key, scannedClasses);
+        return scannedClasses;
+    }
+
+    private List<ScannedCommandClass> scanJar() throws IOException {
+        @Cleanup JarFile jarFile = new JarFile(file);
+
+        return jarFile.stream()
+                .parallel()
+                .filter(entry -> isCandidate(entry.getName()))
+                .map(entry -> scanEntry(jarFile, entry))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public ClassLoader getClassLoader() {
+        return classLoader;
+    }
+
+    private boolean isCandidate(String entryName) {
+        if (!entryName.endsWith(".class")) {
+            return false;
+        }
+
+        String className = entryName
+                .substring(0, entryName.length() - ".class".length())
+                .replace("/", ".");
+
+        return pattern.matcher(className).find();
+    }
+
+    private ScannedCommandClass scanEntry(JarFile jarFile, JarEntry entry) {
+        byte[] classFile;
+        try (InputStream in = jarFile.getInputStream(entry)) {
+            classFile = in.readAllBytes();
         } catch (IOException e) {
-            log.log(Level.SEVERE, "Failed to read JAR " + file, e);
-            return Set.of();
+            throw new UncheckedIOException(e);
         }
+
+        return ClassFileScanner.scan(classFile);
     }
 }
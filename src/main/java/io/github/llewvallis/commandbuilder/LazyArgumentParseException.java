@@ -0,0 +1,34 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.Getter;
+
+/**
+ * Thrown when reading a value from {@link VariadicArguments} whose argument could not be parsed.
+ *
+ * The cause is the {@link ArgumentParseException} raised by the parser. If this escapes an {@link ExecuteCommand}
+ * method, the message is shown to the user as an incorrect command.
+ */
+@Getter
+public class LazyArgumentParseException extends RuntimeException {
+
+    /**
+     * The argument which could not be parsed.
+     */
+    private final String argumentString;
+
+    /**
+     * The index of the argument amongst all the arguments of the command.
+     */
+    private final int position;
+
+    public LazyArgumentParseException(String argumentString, int position, ArgumentParseException cause) {
+        super("invalid argument: " + argumentString + ", " + cause.getMessage(), cause);
+        this.argumentString = argumentString;
+        this.position = position;
+    }
+
+    @Override
+    public synchronized ArgumentParseException getCause() {
+        return (ArgumentParseException) super.getCause();
+    }
+}
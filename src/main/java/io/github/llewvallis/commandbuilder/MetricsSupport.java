@@ -0,0 +1,106 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import lombok.extern.java.Log;
+import org.bukkit.command.Command;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.logging.Level;
+
+/**
+ * Holds the global {@link CommandMetrics} and the helpers executors use to report to it.
+ */
+@Log
+@UtilityClass
+/* package-private */ class MetricsSupport {
+
+    private volatile CommandMetrics global = CommandMetrics.NONE;
+
+    public CommandMetrics getGlobal() {
+        return global;
+    }
+
+    public void setGlobal(CommandMetrics metrics) {
+        if (metrics == null) {
+            throw new IllegalArgumentException("metrics cannot be null, use CommandMetrics.NONE instead");
+        }
+
+        global = metrics;
+    }
+
+    /**
+     * The path an executor was given, or the path of the command itself if it wasn't given one.
+     */
+    public CommandPath getPath(Command command, CommandPath path) {
+        return path != null ? path : CommandPath.of(command.getName());
+    }
+
+    /**
+     * The bytes allocated by the current thread so far if the metrics record allocations, otherwise -1.
+     */
+    public long allocatedBytes(CommandMetrics metrics) {
+        if (!metrics.isRecordingAllocations() || AllocationCounter.threads == null) {
+            return -1;
+        }
+
+        return AllocationCounter.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * The bytes allocated by the current thread since {@link #allocatedBytes(CommandMetrics)} returned a start value,
+     * or -1 if that wasn't measured.
+     */
+    public long allocatedBytesSince(long start) {
+        if (start < 0) {
+            return -1;
+        }
+
+        return AllocationCounter.threads.getThreadAllocatedBytes(Thread.currentThread().getId()) - start;
+    }
+
+    public ParseFailureReason toReason(ArgumentMatcher.FailureKind kind) {
+        if (kind == null) {
+            return ParseFailureReason.INVALID_ARGUMENT;
+        }
+
+        switch (kind) {
+            case NOT_ENOUGH_ARGUMENTS:
+                return ParseFailureReason.NOT_ENOUGH_ARGUMENTS;
+            case TOO_MANY_ARGUMENTS:
+                return ParseFailureReason.TOO_MANY_ARGUMENTS;
+            default:
+                return ParseFailureReason.INVALID_ARGUMENT;
+        }
+    }
+
+    /**
+     * Looks up the thread bean only once allocations are first measured, so commands which don't measure them never
+     * touch the management API.
+     */
+    private class AllocationCounter {
+
+        // Null if the JVM can't count the bytes allocated by a thread
+        private static final com.sun.management.ThreadMXBean threads = findThreadBean();
+
+        private static com.sun.management.ThreadMXBean findThreadBean() {
+            try {
+                ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+                if (!(bean instanceof com.sun.management.ThreadMXBean)) {
+                    return null;
+                }
+
+                com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+                if (!sunBean.isThreadAllocatedMemorySupported()) {
+                    return null;
+                }
+
+                sunBean.setThreadAllocatedMemoryEnabled(true);
+                return sunBean;
+            } catch (LinkageError | RuntimeException e) {
+                log.log(Level.FINE, "Allocated bytes can't be recorded on this JVM", e);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package io.github.llewvallis.commandbuilder;
+
+/**
+ * Why a command could not be run, as reported to {@link CommandMetrics}.
+ */
+public enum ParseFailureReason {
+
+    /**
+     * Fewer arguments were given than the command requires.
+     */
+    NOT_ENOUGH_ARGUMENTS,
+
+    /**
+     * More arguments were given than the command accepts.
+     */
+    TOO_MANY_ARGUMENTS,
+
+    /**
+     * An argument was rejected by its parser.
+     */
+    INVALID_ARGUMENT,
+
+    /**
+     * A composite command was given a subcommand which doesn't exist, or which the sender may not use.
+     */
+    UNKNOWN_SUBCOMMAND
+}
@@ -0,0 +1,127 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.List;
+
+/**
+ * An immutable description of how a {@link BuiltExecutor} parses its arguments, compiled once when the command is
+ * built.
+ *
+ * Parsed values are written into the slots of an {@link ArgumentBuffer}. When the callback is a plain
+ * {@link ReflectionCommandCallback}, the slots are laid out exactly as the callback method expects its arguments: the
+ * context first, then each argument value, then the variadic array. This lets the buffer be handed to the method
+ * without any copying.
+ *
+ * If the callback method takes {@link VariadicArguments}, the variadic arguments are not parsed during matching at all.
+ */
+/* package-private */ final class ParsePlan {
+
+    private final ArgumentParser<?>[] parsers;
+    private final boolean[] optional;
+    private final ArgumentParser<?> variadicParser;
+
+    private final PrimitiveType[] slotTypes;
+    private final PrimitiveType variadicType;
+
+    private final boolean contextSlot;
+    private final boolean lazyVariadic;
+    private final int slotCount;
+
+    private ParsePlan(ArgumentParser<?>[] parsers, ArgumentParser<?> variadicParser, boolean contextSlot,
+                      boolean lazyVariadic) {
+        this.parsers = parsers;
+        this.variadicParser = variadicParser;
+        this.contextSlot = contextSlot;
+        this.lazyVariadic = lazyVariadic;
+
+        optional = new boolean[parsers.length];
+        for (int i = 0; i < parsers.length; i++) {
+            optional[i] = parsers[i].isOptional();
+        }
+
+        int variadicSlots = contextSlot && variadicParser != null ? 1 : 0;
+        slotCount = getFirstArgumentSlot() + parsers.length + variadicSlots;
+
+        // Skipped optional arguments are null, so only required arguments can be stored unboxed
+        slotTypes = new PrimitiveType[slotCount];
+        for (int i = 0; i < parsers.length; i++) {
+            if (!optional[i]) {
+                slotTypes[getFirstArgumentSlot() + i] = PrimitiveType.ofParser(parsers[i]);
+            }
+        }
+
+        variadicType = variadicParser != null && !lazyVariadic ? PrimitiveType.ofParser(variadicParser) : null;
+    }
+
+    /* package-private */ static ParsePlan compile(List<ArgumentParser<?>> parsers, ArgumentParser<?> variadicParser,
+                                                   CommandCallback callback) {
+        // Subclasses may override onSuccess, so only an exact match can skip it
+        boolean contextSlot = callback.getClass() == ReflectionCommandCallback.class;
+        boolean lazyVariadic = false;
+
+        if (contextSlot) {
+            ReflectionCommandCallback reflectionCallback = (ReflectionCommandCallback) callback;
+            reflectionCallback.checkShape(parsers.size(), variadicParser != null);
+            lazyVariadic = variadicParser != null && reflectionCallback.isLazyVariadic();
+        }
+
+        return new ParsePlan(parsers.toArray(new ArgumentParser<?>[0]), variadicParser, contextSlot, lazyVariadic);
+    }
+
+    /* package-private */ int getParserCount() {
+        return parsers.length;
+    }
+
+    /* package-private */ ArgumentParser<?> getParser(int index) {
+        return parsers[index];
+    }
+
+    /* package-private */ boolean isOptional(int index) {
+        return optional[index];
+    }
+
+    /* package-private */ ArgumentParser<?> getVariadicParser() {
+        return variadicParser;
+    }
+
+    /* package-private */ boolean isVariadic() {
+        return variadicParser != null;
+    }
+
+    /**
+     * Whether the variadic arguments are left unparsed for the callback to read through {@link VariadicArguments}.
+     */
+    /* package-private */ boolean isLazyVariadic() {
+        return lazyVariadic;
+    }
+
+    /**
+     * The type of the unboxed values produced for a parser, or null if its values are objects.
+     */
+    /* package-private */ PrimitiveType getPrimitiveType(int index) {
+        return slotTypes[getFirstArgumentSlot() + index];
+    }
+
+    /* package-private */ PrimitiveType getVariadicPrimitiveType() {
+        return variadicType;
+    }
+
+    /**
+     * Whether slot zero is reserved for the {@link CommandContext}, which is the case when the buffer is passed
+     * straight to a {@link ReflectionCommandCallback}.
+     */
+    /* package-private */ boolean hasContextSlot() {
+        return contextSlot;
+    }
+
+    /**
+     * The slot which holds the value of the first argument parser.
+     */
+    /* package-private */ int getFirstArgumentSlot() {
+        return contextSlot ? 1 : 0;
+    }
+
+    /* package-private */ ArgumentBuffer createBuffer() {
+        return new ArgumentBuffer(parsers.length, slotTypes, isVariadic(), variadicType,
+                lazyVariadic ? variadicParser : null);
+    }
+}
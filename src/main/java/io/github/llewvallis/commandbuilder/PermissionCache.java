@@ -0,0 +1,128 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.command.CommandSender;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Remembers which permissions each sender has, so that listing the subcommands a sender may use doesn't call
+ * {@link CommandSender#hasPermission(String)} for each of them on every keystroke.
+ *
+ * Every distinct permission is assigned a bit when a command using it is built, and each sender has a pair of bitsets
+ * recording which permissions have been checked and which were granted. Bukkit has no event for permissions being
+ * recalculated, so a sender's bits are dropped once they are a few seconds old, as well as by {@link QuitListener} when
+ * a player quits. Only listings are served from the cache; running a subcommand always checks its permission directly.
+ */
+@UtilityClass
+/* package-private */ class PermissionCache {
+
+    private final long MAX_AGE = TimeUnit.SECONDS.toNanos(5);
+
+    private final Map<String, Integer> bits = new HashMap<>();
+    private final List<String> permissions = new ArrayList<>();
+
+    private final Map<CommandSender, SenderPermissions> senders = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * The bit assigned to a permission, assigning a new one if it has none.
+     */
+    public synchronized int getBit(String permission) {
+        return bits.computeIfAbsent(permission, key -> {
+            permissions.add(key);
+            return permissions.size() - 1;
+        });
+    }
+
+    /**
+     * Get the granted permissions of a sender, making sure each of the provided bits has been checked.
+     *
+     * The returned array must not be modified.
+     */
+    public long[] getGranted(CommandSender sender, int[] requiredBits) {
+        long now = System.nanoTime();
+
+        SenderPermissions senderPermissions = senders.get(sender);
+        if (senderPermissions == null || now - senderPermissions.created > MAX_AGE) {
+            senderPermissions = new SenderPermissions(now);
+            senders.put(sender, senderPermissions);
+        }
+
+        return senderPermissions.check(sender, requiredBits);
+    }
+
+    public void evict(CommandSender sender) {
+        senders.remove(sender);
+    }
+
+    /**
+     * Whether a bit is set in a bitset returned by {@link #getGranted(CommandSender, int[])}.
+     */
+    public boolean isSet(long[] bitset, int bit) {
+        int word = bit >>> 6;
+        return word < bitset.length && (bitset[word] & (1L << bit)) != 0;
+    }
+
+    private synchronized String getPermission(int bit) {
+        return permissions.get(bit);
+    }
+
+    private static final class SenderPermissions {
+
+        private final long created;
+
+        // Both arrays are replaced together rather than modified, so a returned granted array never changes
+        private volatile long[][] checkedAndGranted = { new long[0], new long[0] };
+
+        private SenderPermissions(long created) {
+            this.created = created;
+        }
+
+        private long[] check(CommandSender sender, int[] requiredBits) {
+            long[][] current = checkedAndGranted;
+            if (allChecked(current[0], requiredBits)) {
+                return current[1];
+            }
+
+            synchronized (this) {
+                current = checkedAndGranted;
+
+                int length = current[0].length;
+                for (int bit : requiredBits) {
+                    length = Math.max(length, (bit >>> 6) + 1);
+                }
+
+                long[] checked = Arrays.copyOf(current[0], length);
+                long[] granted = Arrays.copyOf(current[1], length);
+
+                for (int bit : requiredBits) {
+                    int word = bit >>> 6;
+                    long mask = 1L << bit;
+
+                    if ((checked[word] & mask) == 0) {
+                        checked[word] |= mask;
+
+                        if (sender.hasPermission(getPermission(bit))) {
+                            granted[word] |= mask;
+                        }
+                    }
+                }
+
+                checkedAndGranted = new long[][] { checked, granted };
+                return granted;
+            }
+        }
+
+        private static boolean allChecked(long[] checked, int[] requiredBits) {
+            for (int bit : requiredBits) {
+                int word = bit >>> 6;
+                if (word >= checked.length || (checked[word] & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+    }
+}
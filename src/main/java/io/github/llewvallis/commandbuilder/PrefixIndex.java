@@ -0,0 +1,175 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.*;
+
+/**
+ * An immutable, case insensitive index of strings which can quickly find every string starting with a prefix.
+ *
+ * The strings are kept in a sorted array alongside their case folded forms, so looking up a prefix takes logarithmic
+ * time plus the number of matches and does not allocate for each match. An entry costs two array slots, plus a folded
+ * copy for strings which are not already lower case.
+ */
+public final class PrefixIndex {
+
+    private static final PrefixIndex EMPTY = new PrefixIndex(new String[0], new String[0]);
+
+    private final String[] keys;
+    private final String[] values;
+
+    private PrefixIndex(String[] keys, String[] values) {
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Create an index of the provided strings.
+     */
+    public static PrefixIndex of(Collection<String> strings) {
+        if (strings.isEmpty()) {
+            return EMPTY;
+        }
+
+        String[] values = strings.toArray(new String[0]);
+        Arrays.sort(values, Comparator.comparing(PrefixIndex::fold).thenComparing(Comparator.naturalOrder()));
+
+        String[] keys = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            keys[i] = fold(values[i]);
+        }
+
+        return new PrefixIndex(keys, values);
+    }
+
+    /**
+     * A view of the strings starting with the provided prefix, ignoring case.
+     */
+    public Set<String> matching(String prefix) {
+        String foldedPrefix = fold(prefix);
+
+        int start = lowerBound(foldedPrefix);
+        int end = start;
+
+        // The keys which start with the prefix are contiguous, so find the end of that run
+        int high = keys.length;
+        while (end < high) {
+            int middle = (end + high) >>> 1;
+
+            if (keys[middle].startsWith(foldedPrefix)) {
+                end = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return new Range(start, end);
+    }
+
+    /**
+     * A view of every string in the index.
+     */
+    public Set<String> all() {
+        return new Range(0, values.length);
+    }
+
+    /**
+     * Whether the index contains the provided string, respecting case.
+     */
+    public boolean contains(String value) {
+        String key = fold(value);
+
+        for (int i = lowerBound(key); i < keys.length && keys[i].equals(key); i++) {
+            if (values[i].equals(value)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public String toString() {
+        return all().toString();
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = keys.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+
+            if (keys[middle].compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private static String fold(String string) {
+        // Returns the same instance if the string is already lower case
+        return string.toLowerCase(Locale.ROOT);
+    }
+
+    private class Range extends AbstractSet<String> {
+
+        private final int start;
+        private final int end;
+
+        private Range(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<>() {
+
+                private int index = start;
+
+                @Override
+                public boolean hasNext() {
+                    return index < end;
+                }
+
+                @Override
+                public String next() {
+                    if (index >= end) {
+                        throw new NoSuchElementException();
+                    }
+
+                    return values[index++];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+
+        @Override
+        public boolean contains(Object object) {
+            if (!(object instanceof String)) {
+                return false;
+            }
+
+            String value = (String) object;
+            String key = fold(value);
+
+            for (int i = Math.max(lowerBound(key), start); i < end && keys[i].equals(key); i++) {
+                if (values[i].equals(value)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.Getter;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Arrays;
+
+/**
+ * The primitive types, and how their values are stored unboxed in a {@code long}.
+ *
+ * Integral types and chars are stored as their value, booleans as one or zero, and floating point types as their raw
+ * bits. This lets {@link ArgumentBuffer} keep primitive arguments of any type in a single {@code long[]}.
+ */
+/* package-private */ enum PrimitiveType {
+    BOOLEAN(boolean.class, Boolean.class),
+    BYTE(byte.class, Byte.class),
+    SHORT(short.class, Short.class),
+    CHAR(char.class, Character.class),
+    INT(int.class, Integer.class),
+    LONG(long.class, Long.class),
+    FLOAT(float.class, Float.class),
+    DOUBLE(double.class, Double.class);
+
+    @Getter private final Class<?> type;
+    @Getter private final Class<?> boxedType;
+
+    PrimitiveType(Class<?> type, Class<?> boxedType) {
+        this.type = type;
+        this.boxedType = boxedType;
+    }
+
+    /**
+     * The primitive type of a class, or null if it is not primitive.
+     */
+    /* package-private */ static PrimitiveType of(Class<?> type) {
+        if (!type.isPrimitive()) {
+            return null;
+        }
+
+        for (PrimitiveType primitiveType : values()) {
+            if (primitiveType.type == type) {
+                return primitiveType;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The type a parser can produce without boxing, or null if it can only produce objects.
+     */
+    /* package-private */ static PrimitiveType ofParser(ArgumentParser<?> parser) {
+        if (parser instanceof IntArgumentParser) {
+            return INT;
+        } else if (parser instanceof LongArgumentParser) {
+            return LONG;
+        } else if (parser instanceof FloatArgumentParser) {
+            return FLOAT;
+        } else if (parser instanceof DoubleArgumentParser) {
+            return DOUBLE;
+        } else if (parser instanceof BooleanArgumentParser) {
+            return BOOLEAN;
+        } else {
+            return null;
+        }
+    }
+
+    /**
+     * Parse an argument with a parser for which {@link #ofParser(ArgumentParser)} returned this type.
+     */
+    /* package-private */ long parse(ArgumentParser<?> parser, String argument, int position, CommandContext context)
+            throws ArgumentParseException {
+        switch (this) {
+            case INT:
+                return ((IntArgumentParser) parser).parseInt(argument, position, context);
+            case LONG:
+                return ((LongArgumentParser) parser).parseLong(argument, position, context);
+            case FLOAT:
+                return Float.floatToRawIntBits(((FloatArgumentParser) parser).parseFloat(argument, position, context));
+            case DOUBLE:
+                return Double.doubleToRawLongBits(((DoubleArgumentParser) parser).parseDouble(argument, position,
+                        context));
+            case BOOLEAN:
+                return ((BooleanArgumentParser) parser).parseBoolean(argument, position, context) ? 1 : 0;
+            default:
+                throw new IllegalStateException("no unboxed parser for " + type);
+        }
+    }
+
+    /* package-private */ long encode(Object value) {
+        switch (this) {
+            case BOOLEAN:
+                return (Boolean) value ? 1 : 0;
+            case CHAR:
+                return (Character) value;
+            case FLOAT:
+                return Float.floatToRawIntBits((Float) value);
+            case DOUBLE:
+                return Double.doubleToRawLongBits((Double) value);
+            default:
+                return ((Number) value).longValue();
+        }
+    }
+
+    /* package-private */ Object box(long bits) {
+        switch (this) {
+            case BOOLEAN:
+                return bits != 0;
+            case BYTE:
+                return (byte) bits;
+            case SHORT:
+                return (short) bits;
+            case CHAR:
+                return (char) bits;
+            case INT:
+                return (int) bits;
+            case FLOAT:
+                return Float.intBitsToFloat((int) bits);
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return bits;
+        }
+    }
+
+    /**
+     * Create an array of this type from encoded values.
+     */
+    /* package-private */ Object toArray(long[] values, int count) {
+        switch (this) {
+            case BOOLEAN: {
+                boolean[] array = new boolean[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = values[i] != 0;
+                }
+                return array;
+            }
+            case BYTE: {
+                byte[] array = new byte[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = (byte) values[i];
+                }
+                return array;
+            }
+            case SHORT: {
+                short[] array = new short[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = (short) values[i];
+                }
+                return array;
+            }
+            case CHAR: {
+                char[] array = new char[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = (char) values[i];
+                }
+                return array;
+            }
+            case INT: {
+                int[] array = new int[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = (int) values[i];
+                }
+                return array;
+            }
+            case FLOAT: {
+                float[] array = new float[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = Float.intBitsToFloat((int) values[i]);
+                }
+                return array;
+            }
+            case DOUBLE: {
+                double[] array = new double[count];
+                for (int i = 0; i < count; i++) {
+                    array[i] = Double.longBitsToDouble(values[i]);
+                }
+                return array;
+            }
+            default:
+                return Arrays.copyOf(values, count);
+        }
+    }
+
+    /**
+     * Create an array of this type from boxed values.
+     */
+    /* package-private */ Object toArray(Object[] values, int count) {
+        long[] encoded = new long[count];
+        for (int i = 0; i < count; i++) {
+            encoded[i] = encode(values[i]);
+        }
+
+        return toArray(encoded, count);
+    }
+
+    /**
+     * A method handle which decodes a {@code long} into a value of this type.
+     */
+    /* package-private */ MethodHandle getDecoder() {
+        MethodHandle identity = MethodHandles.identity(long.class);
+
+        switch (this) {
+            case FLOAT:
+                return MethodHandles.filterReturnValue(MethodHandles.explicitCastArguments(identity,
+                        MethodType.methodType(int.class, long.class)), Decoders.INT_BITS_TO_FLOAT);
+            case DOUBLE:
+                return Decoders.LONG_BITS_TO_DOUBLE;
+            default:
+                // Narrowing integral casts, and booleans from their lowest bit
+                return MethodHandles.explicitCastArguments(identity, MethodType.methodType(type, long.class));
+        }
+    }
+
+    private static final class Decoders {
+
+        private static final MethodHandle INT_BITS_TO_FLOAT;
+        private static final MethodHandle LONG_BITS_TO_DOUBLE;
+
+        static {
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+                INT_BITS_TO_FLOAT = lookup.findStatic(Float.class, "intBitsToFloat",
+                        MethodType.methodType(float.class, int.class));
+                LONG_BITS_TO_DOUBLE = lookup.findStatic(Double.class, "longBitsToDouble",
+                        MethodType.methodType(double.class, long.class));
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+    }
+}
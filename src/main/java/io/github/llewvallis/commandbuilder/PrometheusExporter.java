@@ -0,0 +1,190 @@
+package io.github.llewvallis.commandbuilder;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.java.Log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Serves the contents of a {@link StripedCommandMetrics} at {@code /metrics} in the Prometheus text format, so that a
+ * Prometheus server can scrape them.
+ *
+ * The server only listens on the loopback address, so it is reachable from the same machine but not from outside it,
+ * and runs on a daemon thread of its own. It should be {@link #close() closed} when the plugin which started it is
+ * disabled, so that the port is freed for the next time it is enabled.
+ */
+@Log
+public class PrometheusExporter implements Closeable {
+
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+    private static final String PREFIX = "command_builder_";
+
+    private final StripedCommandMetrics metrics;
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private PrometheusExporter(StripedCommandMetrics metrics, HttpServer server, ExecutorService executor) {
+        this.metrics = metrics;
+        this.server = server;
+        this.executor = executor;
+    }
+
+    /**
+     * Start serving metrics on a port of the loopback address, or on any free port if the port is zero.
+     *
+     * @throws IOException if the port could not be bound
+     */
+    public static PrometheusExporter start(StripedCommandMetrics metrics, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Command metrics exporter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        PrometheusExporter exporter = new PrometheusExporter(metrics, server, executor);
+        server.createContext("/metrics", exporter::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        return exporter;
+    }
+
+    /**
+     * The port metrics are being served on.
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Stop serving metrics.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdown();
+    }
+
+    /**
+     * Write the contents of metrics in the Prometheus text format.
+     */
+    public static void write(StripedCommandMetrics metrics, Writer writer) throws IOException {
+        List<StripedCommandMetrics.PathSnapshot> snapshots = metrics.snapshot();
+
+        writeHeader(writer, "executions_total", "counter", "Commands which were parsed and run.");
+        for (StripedCommandMetrics.PathSnapshot snapshot : snapshots) {
+            writeSample(writer, "executions_total", snapshot.getPath(), null, snapshot.getExecutions());
+        }
+
+        writeHeader(writer, "parse_failures_total", "counter", "Commands which could not be parsed, by reason.");
+        for (StripedCommandMetrics.PathSnapshot snapshot : snapshots) {
+            for (ParseFailureReason reason : ParseFailureReason.values()) {
+                long failures = snapshot.getFailures(reason);
+                if (failures > 0) {
+                    String label = ",reason=\"" + reason.name().toLowerCase(Locale.ROOT) + "\"";
+                    writeSample(writer, "parse_failures_total", snapshot.getPath(), label, failures);
+                }
+            }
+        }
+
+        writeHeader(writer, "parse_duration_seconds", "histogram", "Time spent parsing command arguments.");
+        for (StripedCommandMetrics.PathSnapshot snapshot : snapshots) {
+            writeHistogram(writer, "parse_duration_seconds", snapshot.getPath(), snapshot.getParseLatency());
+        }
+
+        writeHeader(writer, "callback_duration_seconds", "histogram", "Time spent running command callbacks.");
+        for (StripedCommandMetrics.PathSnapshot snapshot : snapshots) {
+            writeHistogram(writer, "callback_duration_seconds", snapshot.getPath(), snapshot.getCallbackLatency());
+        }
+
+        if (metrics.isRecordingAllocations()) {
+            writeHeader(writer, "allocated_bytes_total", "counter", "Bytes allocated while running commands.");
+            for (StripedCommandMetrics.PathSnapshot snapshot : snapshots) {
+                writeSample(writer, "allocated_bytes_total", snapshot.getPath(), null, snapshot.getAllocatedBytes());
+            }
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            StringWriter writer = new StringWriter();
+            write(metrics, writer);
+            byte[] body = writer.toString().getBytes(StandardCharsets.UTF_8);
+
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        } catch (IOException | RuntimeException e) {
+            log.log(Level.WARNING, "Failed to serve command metrics", e);
+            throw e;
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void writeHeader(Writer writer, String name, String type, String help) throws IOException {
+        writer.write("# HELP " + PREFIX + name + " " + help + "\n");
+        writer.write("# TYPE " + PREFIX + name + " " + type + "\n");
+    }
+
+    private static void writeHistogram(Writer writer, String name, CommandPath path,
+                                       StripedCommandMetrics.HistogramSnapshot histogram) throws IOException {
+        long cumulativeCount = 0;
+        for (int i = 0; i < histogram.getBucketCount(); i++) {
+            cumulativeCount += histogram.getCount(i);
+
+            long upperBound = histogram.getUpperBoundNanos(i);
+            String bound = upperBound == Long.MAX_VALUE ? "+Inf" : toSeconds(upperBound);
+            writeSample(writer, name + "_bucket", path, ",le=\"" + bound + "\"", cumulativeCount);
+        }
+
+        writer.write(PREFIX + name + "_sum" + labels(path, null) + " " + toSeconds(histogram.getSumNanos()) + "\n");
+        writeSample(writer, name + "_count", path, null, cumulativeCount);
+    }
+
+    private static void writeSample(Writer writer, String name, CommandPath path, String extraLabels, long value)
+            throws IOException {
+        writer.write(PREFIX + name + labels(path, extraLabels) + " " + value + "\n");
+    }
+
+    private static String labels(CommandPath path, String extraLabels) {
+        return "{command=\"" + escape(path.toString()) + "\"" + (extraLabels == null ? "" : extraLabels) + "}";
+    }
+
+    private static String toSeconds(long nanos) {
+        return BigDecimal.valueOf(nanos, 9).stripTrailingZeros().toPlainString();
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,37 @@
+package io.github.llewvallis.commandbuilder;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Releases the per-sender state held by the library when a player quits.
+ */
+/* package-private */ class QuitListener implements Listener {
+
+    private static boolean registered = false;
+
+    /**
+     * Register the listener using the provided plugin.
+     *
+     * Subsequent calls have no effect.
+     */
+    /* package-private */ static synchronized void register(Plugin plugin) {
+        if (registered || !plugin.isEnabled()) {
+            return;
+        }
+
+        Bukkit.getPluginManager().registerEvents(new QuitListener(), plugin);
+        registered = true;
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onQuit(PlayerQuitEvent event) {
+        CompletionSessions.evict(event.getPlayer());
+        PermissionCache.evict(event.getPlayer());
+        AsyncCallbacks.cancel(event.getPlayer());
+    }
+}
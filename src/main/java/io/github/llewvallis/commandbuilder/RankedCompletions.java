@@ -0,0 +1,148 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A {@link CompletionSink} which keeps the best candidates in a bounded heap, so memory use is proportional to the
+ * limit rather than the number of candidates offered.
+ */
+/* package-private */ final class RankedCompletions implements CompletionSink {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String prefix;
+    private final int limit;
+
+    // A heap with the worst candidate at the root, stored as parallel arrays to avoid an object per candidate
+    private String[] candidates;
+    private int[] relevances;
+    private int size = 0;
+
+    /* package-private */ RankedCompletions(String prefix, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit cannot be negative");
+        }
+
+        this.prefix = prefix;
+        this.limit = limit;
+
+        int capacity = Math.min(limit, INITIAL_CAPACITY);
+        candidates = new String[capacity];
+        relevances = new int[capacity];
+    }
+
+    @Override
+    public String getPrefix() {
+        return prefix;
+    }
+
+    @Override
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public void accept(String candidate, int relevance) {
+        if (!startsWithIgnoreCase(candidate, prefix)) {
+            return;
+        }
+
+        if (size < limit) {
+            if (size == candidates.length) {
+                int capacity = (int) Math.min(limit, size * 2L);
+                candidates = Arrays.copyOf(candidates, capacity);
+                relevances = Arrays.copyOf(relevances, capacity);
+            }
+
+            candidates[size] = candidate;
+            relevances[size] = relevance;
+            siftUp(size++);
+        } else if (size > 0 && compare(candidate, relevance, 0) > 0) {
+            candidates[0] = candidate;
+            relevances[0] = relevance;
+            siftDown(0);
+        }
+    }
+
+    /**
+     * The kept candidates, best first.
+     *
+     * This empties the sink.
+     */
+    /* package-private */ List<String> toList() {
+        String[] sorted = new String[size];
+
+        // Repeatedly move the worst candidate to the end of the heap, leaving it sorted best first
+        for (int end = size - 1; end >= 0; end--) {
+            sorted[end] = candidates[0];
+
+            swap(0, end);
+            size--;
+            siftDown(0);
+        }
+
+        return new ArrayList<>(Arrays.asList(sorted));
+    }
+
+    /* package-private */ static boolean startsWithIgnoreCase(String string, String prefix) {
+        return string.regionMatches(true, 0, prefix, 0, prefix.length());
+    }
+
+    // Positive if the candidate is better than the one at the index
+    private int compare(String candidate, int relevance, int index) {
+        int result = Integer.compare(relevance, relevances[index]);
+        if (result == 0) {
+            result = candidates[index].compareToIgnoreCase(candidate);
+        }
+
+        if (result == 0) {
+            result = candidates[index].compareTo(candidate);
+        }
+
+        return result;
+    }
+
+    private void siftUp(int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+
+            if (compare(candidates[parent], relevances[parent], index) <= 0) {
+                break;
+            }
+
+            swap(index, parent);
+            index = parent;
+        }
+    }
+
+    private void siftDown(int index) {
+        while (true) {
+            int worst = index;
+
+            for (int child = 2 * index + 1; child <= 2 * index + 2 && child < size; child++) {
+                if (compare(candidates[worst], relevances[worst], child) > 0) {
+                    worst = child;
+                }
+            }
+
+            if (worst == index) {
+                return;
+            }
+
+            swap(index, worst);
+            index = worst;
+        }
+    }
+
+    private void swap(int a, int b) {
+        String candidate = candidates[a];
+        candidates[a] = candidates[b];
+        candidates[b] = candidate;
+
+        int relevance = relevances[a];
+        relevances[a] = relevances[b];
+        relevances[b] = relevance;
+    }
+}
@@ -1,182 +1,159 @@
 package io.github.llewvallis.commandbuilder;
 
-import lombok.RequiredArgsConstructor;
-import lombok.SneakyThrows;
 import net.md_5.bungee.api.ChatColor;
 import net.md_5.bungee.api.chat.TextComponent;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 
-import java.lang.reflect.*;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 
 /**
  * A {@link CommandCallback} which delegates to a method annotated with {@link ExecuteCommand} on a provided instance.
  */
-@RequiredArgsConstructor
 public class ReflectionCommandCallback implements CommandCallback {
 
-    private final Object instance;
+    /* package-private */ static final CompletableFuture<Boolean> PARSED = CompletableFuture.completedFuture(true);
+    private static final CompletableFuture<Boolean> NOT_PARSED = CompletableFuture.completedFuture(false);
 
-    @Override
-    public void onSuccess(List<Object> argumentValues, List<Object> variadicArgumentValues, CommandContext context) {
-        List<Object> argumentValuesWithContext = new ArrayList<>();
-        argumentValuesWithContext.add(context);
-        argumentValuesWithContext.addAll(argumentValues);
+    private final Executor asyncExecutor;
+    private final CallbackInvoker invoker;
 
-        Method onSuccessMethod = ArgumentInference.getMethodByAnnotation(ExecuteCommand.class, instance.getClass(), instance.getClass());
-        onSuccessMethod.setAccessible(true);
-        runCallback(onSuccessMethod, argumentValuesWithContext, variadicArgumentValues, context);
+    public ReflectionCommandCallback(Object instance) {
+        this(instance, null);
     }
 
-    @Override
-    public void onFailure(CommandParseException cause, CommandContext context) {
-        TextComponent errorMessage = new TextComponent("Incorrect command: " + cause.getMessage());
-        errorMessage.setColor(ChatColor.RED);
-
-        TextComponent usageMessage = new TextComponent("Usage: " + context.getUsageMessage());
-        usageMessage.setItalic(true);
-        usageMessage.setColor(ChatColor.RED);
+    /**
+     * Create a callback which runs methods marked with {@link ExecuteCommand#async()} on the provided executor.
+     *
+     * If the executor is null, {@link TaskExecutors#asyncCallbacks()} is used.
+     *
+     * @throws ReflectionCommandCallbackException if the instance has no usable {@link ExecuteCommand} method
+     */
+    public ReflectionCommandCallback(Object instance, Executor asyncExecutor) {
+        this.asyncExecutor = asyncExecutor;
+        invoker = CallbackInvoker.create(instance);
+    }
 
-        context.getSender().spigot().sendMessage(errorMessage);
-        context.getSender().spigot().sendMessage(usageMessage);
+    @Override
+    public void onSuccess(List<Object> argumentValues, List<Object> variadicArgumentValues, CommandContext context) {
+        invoke(ArgumentBuffer.of(argumentValues, variadicArgumentValues), context);
     }
 
-    @SneakyThrows({ IllegalAccessException.class })
-    private void runCallback(Method callbackMethod, List<Object> argumentValues,
-                                       List<Object> variadicArgumentValues, CommandContext context) {
-        if (callbackMethod.isAnnotationPresent(PlayerOnlyCommand.class) && !(context.getSender() instanceof Player)) {
+    /**
+     * Invoke the callback method with the values in a buffer laid out as in {@link ParsePlan}, filling in slot zero
+     * and the final slot of a variadic command.
+     *
+     * The buffer is not retained, so it can be reused once this returns.
+     *
+     * @return a future of whether every variadic argument the callback read through {@link VariadicArguments} was
+     * valid, which completes once an asynchronous callback has finished, or exceptionally if it throws or is cancelled
+     */
+    /* package-private */ CompletableFuture<Boolean> invoke(ArgumentBuffer buffer, CommandContext context) {
+        buffer.slots[0] = context;
+
+        if (invoker.isPlayerOnly() && !(context.getSender() instanceof Player)) {
             TextComponent message = new TextComponent("Only players can use this command");
             message.setColor(ChatColor.RED);
 
             context.getSender().spigot().sendMessage(message);
-            return;
+            return PARSED;
         }
 
-        checkCallback(callbackMethod, argumentValues, variadicArgumentValues);
+        invoker.prepare(buffer);
 
-        try {
-            runCallbackUnchecked(callbackMethod, argumentValues, variadicArgumentValues);
-        } catch (InvocationTargetException e) {
-            Bukkit.getLogger().log(Level.SEVERE, "Unhandled exception in command callback for " + context.getCommand(), e.getCause());
-            throw new ReflectionCommandCallbackException("unhandled exception in callback method ", e.getCause());
+        if (invoker.isAsync()) {
+            return runCallbackAsync(buffer.slots, buffer.primitiveSlots, context);
         }
-    }
-
-    private void runCallbackUnchecked(Method callbackMethod, List<Object> argumentValues,
-                                         List<Object> variadicArgumentValues)
-            throws InvocationTargetException, IllegalAccessException {
-        boolean variadic = variadicArgumentValues != null;
-        int argumentCount = argumentValues.size() + (variadic ? 1 : 0) ;
-
-        Object[] arguments = new Object[argumentCount];
-        argumentValues.toArray(arguments);
-
-        if (variadic) {
-            Class<?>[] parameterTypes = callbackMethod.getParameterTypes();
-
-            Class<?> variadicType = parameterTypes[parameterTypes.length - 1];
-            Class<?> elementType = variadicType.getComponentType();
 
-            Object[] untypedVariadicArguments = variadicArgumentValues.toArray();
-            Object typedVariadicArguments = primitiveRespectingArrayCopy(untypedVariadicArguments, elementType);
-
-            arguments[arguments.length - 1] = typedVariadicArguments;
+        try {
+            invoker.invoke(buffer.slots, buffer.primitiveSlots);
+            return PARSED;
+        } catch (LazyArgumentParseException e) {
+            onFailure(new CommandParseException(e.getMessage()), context);
+            return NOT_PARSED;
+        } catch (Throwable e) {
+            Bukkit.getLogger().log(Level.SEVERE, "Unhandled exception in command callback for " + context.getCommand(), e);
+            throw new ReflectionCommandCallbackException("unhandled exception in callback method ", e);
         }
-
-        callbackMethod.invoke(instance, arguments);
     }
 
-    private Object primitiveRespectingArrayCopy(Object[] untypedVariadicArguments, Class<?> elementType) {
-        Object array = Array.newInstance(elementType, untypedVariadicArguments.length);
-
-        for (int i = 0; i < untypedVariadicArguments.length; i++) {
-            Object argument = untypedVariadicArguments[i];
-            Array.set(array, i, argument);
-        }
-
-        return array;
+    /**
+     * Check that the callback method matches the arguments of a command, so a mismatch is reported when the command is
+     * built rather than each time it is run.
+     */
+    /* package-private */ void checkShape(int argumentCount, boolean variadic) {
+        invoker.checkShape(argumentCount, variadic);
     }
 
-    private void checkCallback(Method callbackMethod, List<Object> argumentValues,
-                                   List<Object> variadicArgumentValues) {
-        Class<?>[] argumentTypes = callbackMethod.getParameterTypes();
-        boolean variadic = callbackMethod.isVarArgs();
-
-        Class<?>[] nonVariadicArgumentTypes;
-        Class<?> variadicArgumentType;
-
-        if (variadic) {
-            if (argumentTypes.length < 1) {
-                throw new ReflectionCommandCallbackException("missing variadic argument in callback method");
-            }
-
-            nonVariadicArgumentTypes = new Class<?>[argumentTypes.length - 1];
-            System.arraycopy(argumentTypes, 0, nonVariadicArgumentTypes, 0, argumentTypes.length - 1);
-
-            variadicArgumentType = argumentTypes[argumentTypes.length - 1].getComponentType();
-        } else {
-            nonVariadicArgumentTypes = new Class<?>[argumentTypes.length];
-            System.arraycopy(argumentTypes, 0, nonVariadicArgumentTypes, 0, argumentTypes.length);
+    /**
+     * Whether the callback method reads its variadic values through {@link VariadicArguments}.
+     */
+    /* package-private */ boolean isLazyVariadic() {
+        return invoker.isLazyVariadic();
+    }
 
-            variadicArgumentType = null;
-        }
+    @Override
+    public void onFailure(CommandParseException cause, CommandContext context) {
+        TextComponent errorMessage = new TextComponent("Incorrect command: " + cause.getMessage());
+        errorMessage.setColor(ChatColor.RED);
 
-        Class<?> returnType = callbackMethod.getReturnType();
+        TextComponent usageMessage = new TextComponent("Usage: " + context.getUsageMessage());
+        usageMessage.setItalic(true);
+        usageMessage.setColor(ChatColor.RED);
 
-        checkArguments(nonVariadicArgumentTypes, argumentValues);
-        checkVariadicConsistency(variadicArgumentType, variadicArgumentValues);
-        checkReturnType(returnType);
+        context.getSender().spigot().sendMessage(errorMessage);
+        context.getSender().spigot().sendMessage(usageMessage);
     }
 
-    private static void checkArguments(Class<?>[] argumentTypes, List<Object> argumentValues) {
-        if (argumentTypes.length != argumentValues.size()) {
-            throw new ReflectionCommandCallbackException("method expected the wrong amount of arguments");
-        }
+    private CompletableFuture<Boolean> runCallbackAsync(Object[] arguments, long[] primitives, CommandContext context) {
+        // The arguments may be reused as soon as this returns, and the sender should only be read on this thread
+        Object[] argumentsCopy = arguments.clone();
+        long[] primitivesCopy = primitives.clone();
+        context.getSenderSnapshot();
 
-        for (int i = 0; i < argumentTypes.length; i++) {
-            Object value = argumentValues.get(i);
-            Class<?> expectedType = argumentTypes[i];
+        Executor executor = Objects.requireNonNullElseGet(asyncExecutor, TaskExecutors::asyncCallbacks);
 
-            if (value == null) {
-                if (expectedType.isPrimitive()) {
-                    throw new ReflectionCommandCallbackException("primitive type " + expectedType + " cannot be "
-                            + "optional, try using the boxed type instead");
+        try {
+            return AsyncCallbacks.submit(executor, context.getSender(), () -> {
+                try {
+                    invoker.invoke(argumentsCopy, primitivesCopy);
+                } catch (LazyArgumentParseException e) {
+                    reportLazyFailure(e, context);
+                    return false;
+                } catch (Throwable e) {
+                    if (!(e instanceof InterruptedException)) {
+                        Bukkit.getLogger().log(Level.SEVERE, "Unhandled exception in asynchronous command callback for "
+                                + context.getCommand(), e);
+                    }
+
+                    throw new ReflectionCommandCallbackException("unhandled exception in callback method", e);
                 }
-            } else {
-                Class<?> valueType = value.getClass();
 
-                if (!expectedType.isAssignableFrom(valueType) && !ReflectionUtil.boxedType(expectedType).isAssignableFrom(valueType)) {
-                    throw new ReflectionCommandCallbackException(valueType + " is not assignable to " + expectedType);
-                }
-            }
-        }
-    }
+                return true;
+            });
+        } catch (RejectedExecutionException e) {
+            Bukkit.getLogger().log(Level.WARNING, "Asynchronous command callback for " + context.getCommand()
+                    + " was rejected", e);
 
-    private void checkVariadicConsistency(Class<?> variadicArgumentType, List<Object> variadicArgumentValues) {
-        if (variadicArgumentValues == null && variadicArgumentType != null) {
-            throw new ReflectionCommandCallbackException("had a variadic argument for a non-variadic command");
-        } else if (variadicArgumentValues != null && variadicArgumentType == null) {
-            throw new ReflectionCommandCallbackException("missing variadic argument for variadic command");
-        }
-
-        if (variadicArgumentType != null) {
-            for (Object value : variadicArgumentValues) {
-                Class<?> valueType = value.getClass();
+            TextComponent message = new TextComponent("The server is too busy to run this command, try again later");
+            message.setColor(ChatColor.RED);
 
-                if (!variadicArgumentType.isAssignableFrom(valueType) && !ReflectionUtil.boxedType(variadicArgumentType).isAssignableFrom(valueType)) {
-                    throw new ReflectionCommandCallbackException(value.getClass() + " is not assignable to " +
-                            variadicArgumentType);
-                }
-            }
+            context.getSender().spigot().sendMessage(message);
+            return PARSED;
         }
     }
 
-    private static void checkReturnType(Class<?> returnType) {
-        if (returnType != Void.TYPE) {
-            throw new ReflectionCommandCallbackException("return type must be void");
+    private void reportLazyFailure(LazyArgumentParseException cause, CommandContext context) {
+        try {
+            context.runOnMainThread(() -> onFailure(new CommandParseException(cause.getMessage()), context));
+        } catch (IllegalStateException e) {
+            Bukkit.getLogger().log(Level.WARNING, "Could not report an invalid argument to the sender of "
+                    + context.getCommand(), cause);
         }
     }
 }
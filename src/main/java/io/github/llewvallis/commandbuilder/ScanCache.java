@@ -0,0 +1,252 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.logging.Level;
+
+/**
+ * Remembers what {@link JarAutoCommandSource} found in a JAR, so that it doesn't need to be scanned again until the JAR
+ * changes.
+ *
+ * The cache is a single binary file keyed by the path, size, modification time and SHA-256 hash of the JAR, along with
+ * the class name pattern. The hash is only computed once everything else matches. A stale or unreadable cache is
+ * treated as a miss, and the new cache is written to a temporary file which then replaces the old one atomically.
+ */
+@Log
+@RequiredArgsConstructor
+/* package-private */ class ScanCache {
+
+    private static final int MAGIC = 0x43425343;
+    private static final int VERSION = 1;
+
+    private static final int HASH_BUFFER_SIZE = 64 * 1024;
+
+    private final Path file;
+
+    /**
+     * The cache for a JAR source, kept in a plugin's data folder.
+     */
+    /* package-private */ static ScanCache in(File dataFolder, File jar, String pattern) {
+        String key = Integer.toHexString(Objects.hash(jar.getAbsolutePath(), pattern));
+        return new ScanCache(dataFolder.toPath().resolve("command-builder").resolve("scan-" + key + ".bin"));
+    }
+
+    /**
+     * Get the cached scan of a JAR, or null if there is none or it is out of date.
+     */
+    /* package-private */ List<ScannedCommandClass> load(Key key) {
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate(Math.toIntExact(channel.size()));
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) { }
+            buffer.flip();
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException | ArithmeticException e) {
+            log.log(Level.WARNING, "Failed to read scan cache " + file, e);
+            return null;
+        }
+
+        try {
+            return read(buffer, key);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            return null;
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to hash " + key.path, e);
+            return null;
+        }
+    }
+
+    /**
+     * Replace the cached scan.
+     */
+    /* package-private */ void store(Key key, List<ScannedCommandClass> scannedClasses) {
+        try {
+            ByteBuffer buffer = write(key, scannedClasses);
+
+            Files.createDirectories(file.getParent());
+            Path temporaryFile = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+
+            try {
+                try (FileChannel channel = FileChannel.open(temporaryFile, StandardOpenOption.WRITE)) {
+                    while (buffer.hasRemaining()) {
+                        channel.write(buffer);
+                    }
+
+                    channel.force(true);
+                }
+
+                try {
+                    Files.move(temporaryFile, file, StandardCopyOption.ATOMIC_MOVE,
+                            StandardCopyOption.REPLACE_EXISTING);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temporaryFile, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temporaryFile);
+            }
+        } catch (IOException e) {
+            log.log(Level.WARNING, "Failed to write scan cache " + file, e);
+        }
+    }
+
+    private List<ScannedCommandClass> read(ByteBuffer buffer, Key key) throws IOException {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        String path = readString(buffer);
+        String pattern = readString(buffer);
+        long size = buffer.getLong();
+        long modifiedTime = buffer.getLong();
+
+        if (!path.equals(key.path) || !pattern.equals(key.pattern) || size != key.size
+                || modifiedTime != key.modifiedTime) {
+            return null;
+        }
+
+        byte[] hash = new byte[buffer.get() & 0xFF];
+        buffer.get(hash);
+
+        if (!Arrays.equals(hash, key.getHash())) {
+            return null;
+        }
+
+        int count = buffer.getInt();
+        List<ScannedCommandClass> scannedClasses = new ArrayList<>(count);
+
+        for (int i = 0; i < count; i++) {
+            boolean subCommand = buffer.get() != 0;
+            String className = readString(buffer);
+            String parentClassName = readString(buffer);
+            String factoryMethod = readString(buffer);
+            String commandName = readString(buffer);
+
+            scannedClasses.add(new ScannedCommandClass(className, subCommand,
+                    subCommand ? parentClassName : null, factoryMethod,
+                    commandName.isEmpty() ? null : commandName));
+        }
+
+        return scannedClasses;
+    }
+
+    private ByteBuffer write(Key key, List<ScannedCommandClass> scannedClasses) throws IOException {
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(encode(key.path));
+        strings.add(encode(key.pattern));
+
+        for (ScannedCommandClass scannedClass : scannedClasses) {
+            strings.add(encode(scannedClass.getClassName()));
+            strings.add(encode(scannedClass.getParentClassName()));
+            strings.add(encode(scannedClass.getFactoryMethod()));
+            strings.add(encode(scannedClass.getCommandName()));
+        }
+
+        byte[] hash = key.getHash();
+
+        int length = 4 + 4 + 8 + 8 + 1 + hash.length + 4 + scannedClasses.size();
+        for (byte[] string : strings) {
+            length += 4 + string.length;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        writeString(buffer, strings.get(0));
+        writeString(buffer, strings.get(1));
+        buffer.putLong(key.size).putLong(key.modifiedTime);
+        buffer.put((byte) hash.length).put(hash);
+
+        buffer.putInt(scannedClasses.size());
+        for (int i = 0; i < scannedClasses.size(); i++) {
+            buffer.put((byte) (scannedClasses.get(i).isSubCommand() ? 1 : 0));
+            for (int j = 0; j < 4; j++) {
+                writeString(buffer, strings.get(2 + i * 4 + j));
+            }
+        }
+
+        return buffer.flip();
+    }
+
+    private static byte[] encode(String string) {
+        return string == null ? new byte[0] : string.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(ByteBuffer buffer, byte[] string) {
+        buffer.putInt(string.length).put(string);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new IllegalArgumentException("invalid string length " + length);
+        }
+
+        String string = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length,
+                StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return string;
+    }
+
+    /**
+     * Identifies the contents of a JAR. The hash is only computed if it is needed.
+     */
+    /* package-private */ static class Key {
+
+        private final Path jar;
+        private final String path;
+        private final String pattern;
+        private final long size;
+        private final long modifiedTime;
+
+        private byte[] hash = null;
+
+        /* package-private */ Key(File jar, String pattern) throws IOException {
+            this.jar = jar.toPath();
+            this.path = jar.getAbsolutePath();
+            this.pattern = pattern;
+
+            BasicFileAttributes attributes = Files.readAttributes(this.jar, BasicFileAttributes.class);
+            this.size = attributes.size();
+            this.modifiedTime = attributes.lastModifiedTime().toMillis();
+        }
+
+        private byte[] getHash() throws IOException {
+            if (hash == null) {
+                MessageDigest digest;
+                try {
+                    digest = MessageDigest.getInstance("SHA-256");
+                } catch (NoSuchAlgorithmException e) {
+                    throw new RuntimeException(e);
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocateDirect(HASH_BUFFER_SIZE);
+                try (FileChannel channel = FileChannel.open(jar, StandardOpenOption.READ)) {
+                    while (channel.read(buffer) >= 0) {
+                        buffer.flip();
+                        digest.update(buffer);
+                        buffer.clear();
+                    }
+                }
+
+                hash = digest.digest();
+            }
+
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * A class annotated with {@link AutoCommand} or {@link AutoSubCommand}, described by name so that it can be found
+ * without loading it.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor
+/* package-private */ final class ScannedCommandClass {
+
+    /**
+     * The binary name of the class, as accepted by {@link Class#forName(String)}.
+     */
+    private final String className;
+
+    /**
+     * Whether the class is annotated with {@link AutoSubCommand} rather than {@link AutoCommand}.
+     */
+    private final boolean subCommand;
+
+    /**
+     * The binary name of {@link AutoSubCommand#value()}, or null for a top level command.
+     */
+    private final String parentClassName;
+
+    /**
+     * The factory method of the annotation, which is empty if the constructor should be used.
+     */
+    private final String factoryMethod;
+
+    /**
+     * The {@link AutoCommand#name()} of a top level command, or null if it was not given.
+     */
+    private final String commandName;
+}
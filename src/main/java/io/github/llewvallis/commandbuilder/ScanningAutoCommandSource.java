@@ -0,0 +1,47 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A source which can describe its auto commands without loading them, so that {@link AutoCommandBuilder} can defer
+ * loading each class until its command is used.
+ */
+/* package-private */ interface ScanningAutoCommandSource extends AutoCommandSource {
+
+    /**
+     * Find the auto commands of this source.
+     */
+    List<ScannedCommandClass> scan() throws IOException;
+
+    /**
+     * The class loader which the scanned classes should be loaded with.
+     */
+    ClassLoader getClassLoader();
+
+    @Override
+    default Set<Class<?>> getClassesForScanning() {
+        List<ScannedCommandClass> scannedClasses;
+        try {
+            scannedClasses = scan();
+        } catch (IOException | UncheckedIOException e) {
+            Logger.getLogger(ScanningAutoCommandSource.class.getName()).log(Level.SEVERE, "Failed to scan " + this, e);
+            return Set.of();
+        }
+
+        Set<Class<?>> classes = new HashSet<>();
+        for (ScannedCommandClass scannedClass : scannedClasses) {
+            try {
+                classes.add(Class.forName(scannedClass.getClassName(), false, getClassLoader()));
+            } catch (ClassNotFoundException | LinkageError ignored) {
+            }
+        }
+
+        return classes;
+    }
+}
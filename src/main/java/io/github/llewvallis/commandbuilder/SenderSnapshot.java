@@ -0,0 +1,75 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.bukkit.Location;
+import org.bukkit.command.CommandSender;
+import org.bukkit.entity.Entity;
+import org.bukkit.entity.Player;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * An immutable copy of the properties of a {@link CommandSender} at the time a command was sent.
+ *
+ * Unlike the sender itself, a snapshot can safely be read from any thread, which makes it useful in callbacks which
+ * are run asynchronously.
+ *
+ * @see ExecuteCommand#async()
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class SenderSnapshot {
+
+    /**
+     * The name of the sender.
+     */
+    @Getter
+    private final String name;
+
+    private final UUID uniqueId;
+
+    /**
+     * Whether the sender was a player.
+     */
+    @Getter
+    private final boolean player;
+
+    /**
+     * Whether the sender was an operator.
+     */
+    @Getter
+    private final boolean op;
+
+    private final Location location;
+
+    /* package-private */ static SenderSnapshot capture(CommandSender sender) {
+        UUID uniqueId = null;
+        Location location = null;
+
+        if (sender instanceof Entity) {
+            Entity entity = (Entity) sender;
+            uniqueId = entity.getUniqueId();
+            location = entity.getLocation().clone();
+        }
+
+        return new SenderSnapshot(sender.getName(), uniqueId, sender instanceof Player, sender.isOp(), location);
+    }
+
+    /**
+     * The unique ID of the sender, if it was an entity.
+     */
+    public Optional<UUID> getUniqueId() {
+        return Optional.ofNullable(uniqueId);
+    }
+
+    /**
+     * The location of the sender, if it was an entity.
+     *
+     * A copy is returned, so it can be modified freely.
+     */
+    public Optional<Location> getLocation() {
+        return Optional.ofNullable(location).map(Location::clone);
+    }
+}
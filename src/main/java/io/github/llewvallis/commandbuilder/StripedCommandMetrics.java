@@ -0,0 +1,283 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link CommandMetrics} which count invocations and parse failures and keep latency histograms for each
+ * {@link CommandPath}, without taking any locks once a path has been seen.
+ *
+ * Histograms are split into stripes chosen by thread, so commands completed asynchronously on many threads don't
+ * contend on the same counters. Their buckets double in width from one microsecond up to about eight seconds, matching
+ * the buckets {@link PrometheusExporter} serves. Reading a {@link #snapshot()} while commands run is safe, although a
+ * snapshot may include part of an invocation which was being recorded at the time.
+ */
+public class StripedCommandMetrics implements CommandMetrics {
+
+    private static final long FIRST_BUCKET_NANOS = 1000;
+    private static final int BUCKET_COUNT = 24;
+    private static final int MAX_STRIPES = 16;
+
+    // Each stripe holds the buckets, an overflow bucket and the sum, padded so stripes don't share cache lines
+    private static final int SUM_INDEX = BUCKET_COUNT + 1;
+    private static final int STRIPE_LENGTH = 32;
+
+    private final boolean recordingAllocations;
+    private final int stripeMask;
+
+    private final Map<CommandPath, PathMetrics> paths = new ConcurrentHashMap<>();
+
+    /**
+     * Create metrics which don't record allocated bytes.
+     */
+    public StripedCommandMetrics() {
+        this(false);
+    }
+
+    public StripedCommandMetrics(boolean recordingAllocations) {
+        this.recordingAllocations = recordingAllocations;
+
+        int processors = Math.min(Runtime.getRuntime().availableProcessors(), MAX_STRIPES);
+        int stripes = Integer.highestOneBit(processors);
+        if (stripes < processors) {
+            stripes <<= 1;
+        }
+
+        stripeMask = stripes - 1;
+    }
+
+    @Override
+    public boolean isRecordingAllocations() {
+        return recordingAllocations;
+    }
+
+    @Override
+    public void recordExecution(CommandPath path, long parseNanos, long callbackNanos, long allocatedBytes) {
+        PathMetrics metrics = getPathMetrics(path);
+        int stripe = stripe();
+
+        metrics.executions.increment();
+        metrics.parseLatency.record(stripe, parseNanos);
+        metrics.callbackLatency.record(stripe, callbackNanos);
+
+        if (allocatedBytes >= 0) {
+            metrics.allocatedBytes.add(allocatedBytes);
+        }
+    }
+
+    @Override
+    public void recordParseFailure(CommandPath path, ParseFailureReason reason, long parseNanos, long allocatedBytes) {
+        PathMetrics metrics = getPathMetrics(path);
+
+        metrics.failures[reason.ordinal()].increment();
+        metrics.parseLatency.record(stripe(), parseNanos);
+
+        if (allocatedBytes >= 0) {
+            metrics.allocatedBytes.add(allocatedBytes);
+        }
+    }
+
+    /**
+     * Read the metrics of every path which has been recorded, ordered by path.
+     */
+    public List<PathSnapshot> snapshot() {
+        List<PathSnapshot> result = new ArrayList<>();
+
+        paths.forEach((path, metrics) -> {
+            long[] failures = new long[metrics.failures.length];
+            for (int i = 0; i < failures.length; i++) {
+                failures[i] = metrics.failures[i].sum();
+            }
+
+            result.add(new PathSnapshot(path, metrics.executions.sum(), failures,
+                    recordingAllocations ? metrics.allocatedBytes.sum() : -1,
+                    metrics.parseLatency.snapshot(), metrics.callbackLatency.snapshot()));
+        });
+
+        result.sort(Comparator.comparing(snapshot -> snapshot.getPath().toString()));
+        return result;
+    }
+
+    /**
+     * Forget everything which has been recorded.
+     */
+    public void reset() {
+        paths.clear();
+    }
+
+    private PathMetrics getPathMetrics(CommandPath path) {
+        PathMetrics metrics = paths.get(path);
+        return metrics != null ? metrics : paths.computeIfAbsent(path, key -> new PathMetrics(stripeMask + 1));
+    }
+
+    private int stripe() {
+        return (int) Thread.currentThread().getId() & stripeMask;
+    }
+
+    /**
+     * The upper bound in nanoseconds of a histogram bucket, which is {@link Long#MAX_VALUE} for the last bucket.
+     */
+    private static long getUpperBound(int bucket) {
+        return bucket < BUCKET_COUNT ? FIRST_BUCKET_NANOS << bucket : Long.MAX_VALUE;
+    }
+
+    private static int getBucket(long nanos) {
+        if (nanos <= FIRST_BUCKET_NANOS) {
+            return 0;
+        }
+
+        return Math.min(64 - Long.numberOfLeadingZeros((nanos - 1) / FIRST_BUCKET_NANOS), BUCKET_COUNT);
+    }
+
+    private static class PathMetrics {
+
+        private final LongAdder executions = new LongAdder();
+        private final LongAdder[] failures = new LongAdder[ParseFailureReason.values().length];
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private final StripedHistogram parseLatency;
+        private final StripedHistogram callbackLatency;
+
+        private PathMetrics(int stripes) {
+            for (int i = 0; i < failures.length; i++) {
+                failures[i] = new LongAdder();
+            }
+
+            parseLatency = new StripedHistogram(stripes);
+            callbackLatency = new StripedHistogram(stripes);
+        }
+    }
+
+    private static class StripedHistogram {
+
+        private final AtomicLongArray values;
+
+        private StripedHistogram(int stripes) {
+            values = new AtomicLongArray(stripes * STRIPE_LENGTH);
+        }
+
+        private void record(int stripe, long nanos) {
+            int base = stripe * STRIPE_LENGTH;
+            values.getAndIncrement(base + getBucket(nanos));
+            values.getAndAdd(base + SUM_INDEX, Math.max(nanos, 0));
+        }
+
+        private HistogramSnapshot snapshot() {
+            long[] counts = new long[BUCKET_COUNT + 1];
+            long sum = 0;
+
+            for (int base = 0; base < values.length(); base += STRIPE_LENGTH) {
+                for (int i = 0; i < counts.length; i++) {
+                    counts[i] += values.get(base + i);
+                }
+
+                sum += values.get(base + SUM_INDEX);
+            }
+
+            return new HistogramSnapshot(counts, sum);
+        }
+    }
+
+    /**
+     * What was recorded for one command or subcommand.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class PathSnapshot {
+
+        private final CommandPath path;
+
+        /**
+         * The number of times the command was parsed and run.
+         */
+        private final long executions;
+
+        @Getter(AccessLevel.NONE)
+        private final long[] failures;
+
+        /**
+         * The bytes allocated over every invocation, or -1 if allocations weren't recorded.
+         */
+        private final long allocatedBytes;
+
+        /**
+         * The latency of parsing arguments, including those which failed to parse.
+         */
+        private final HistogramSnapshot parseLatency;
+
+        /**
+         * The latency of running the command's callback.
+         */
+        private final HistogramSnapshot callbackLatency;
+
+        /**
+         * The number of times the command failed to parse for a reason.
+         */
+        public long getFailures(ParseFailureReason reason) {
+            return failures[reason.ordinal()];
+        }
+
+        /**
+         * The number of times the command was invoked, whether or not it parsed.
+         */
+        public long getInvocations() {
+            long invocations = executions;
+            for (long count : failures) {
+                invocations += count;
+            }
+
+            return invocations;
+        }
+    }
+
+    /**
+     * The latencies recorded by one histogram.
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class HistogramSnapshot {
+
+        private final long[] counts;
+
+        /**
+         * The sum of every recorded latency in nanoseconds.
+         */
+        @Getter
+        private final long sumNanos;
+
+        public int getBucketCount() {
+            return counts.length;
+        }
+
+        /**
+         * The number of latencies recorded in a bucket, excluding those in lower buckets.
+         */
+        public long getCount(int bucket) {
+            return counts[bucket];
+        }
+
+        /**
+         * The upper bound in nanoseconds of a bucket, which is {@link Long#MAX_VALUE} for the last bucket.
+         */
+        public long getUpperBoundNanos(int bucket) {
+            return getUpperBound(bucket);
+        }
+
+        public long getTotalCount() {
+            long total = 0;
+            for (long count : counts) {
+                total += count;
+            }
+
+            return total;
+        }
+    }
+}
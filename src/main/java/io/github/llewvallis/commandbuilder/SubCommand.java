@@ -1,8 +1,9 @@
 package io.github.llewvallis.commandbuilder;
 
+import lombok.Synchronized;
 import lombok.extern.java.Log;
-import org.bukkit.command.TabExecutor;
 
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
@@ -15,7 +16,7 @@ import java.util.Optional;
 @Log
 public abstract class SubCommand {
 
-    private TabExecutor executor = null;
+    private volatile ArgumentWindowExecutor executor = null;
 
     /**
      * The name and label of the subcommand.
@@ -42,6 +43,16 @@ public abstract class SubCommand {
         throw new InferFromMetadataException();
     }
 
+    /**
+     * Other labels which can be used to run the subcommand, matched ignoring case like the name.
+     *
+     * If this throws an {@link InferFromMetadataException} the aliases will be fetched from the
+     * {@link CompositeCommandBuilder}'s metadata, defaulting to none.
+     */
+    public List<String> getAliases() {
+        throw new InferFromMetadataException();
+    }
+
     /**
      * An optional permission which will additionally be required for the subcommand and its children.
      *
@@ -110,6 +121,28 @@ public abstract class SubCommand {
         }
     }
 
+    /* package-private */ List<String> getResolvedAliases(Map<String, Object> metadata) {
+        try {
+            return getAliases();
+        } catch (InferFromMetadataException e) {
+            Map<String, Object> subCommandMetadata = CompositeCommandBuilder.getSubCommandMetadata(metadata, getName());
+
+            Object aliases = subCommandMetadata.get("aliases");
+            if (aliases instanceof String) {
+                return List.of((String) aliases);
+            } else if (aliases instanceof List && ((List<?>) aliases).stream().allMatch(String.class::isInstance)) {
+                @SuppressWarnings("unchecked")
+                List<String> aliasList = (List<String>) aliases;
+                return aliasList;
+            } else if (aliases != null) {
+                log.warning("Expected string or list of strings under property " + getName() + ".aliases but found "
+                        + aliases);
+            }
+
+            return List.of();
+        }
+    }
+
     private String getMetadataString(Map<String, Object> parentMetadata, String property) {
         Map<String, Object> metadata = CompositeCommandBuilder.getSubCommandMetadata(parentMetadata, getName());
 
@@ -124,12 +157,18 @@ public abstract class SubCommand {
         }
     }
 
-    /* package-private */ TabExecutor getOrCreateExecutor(Map<String, Object> metadata) {
+    /* package-private */ ArgumentWindowExecutor getOrCreateExecutor(Map<String, Object> metadata) {
+        ArgumentWindowExecutor result = executor;
+        return result != null ? result : createExecutor(metadata);
+    }
+
+    @Synchronized
+    private ArgumentWindowExecutor createExecutor(Map<String, Object> metadata) {
         if (executor == null) {
             CommandBuilder builder = new CommandBuilder();
             builder.usageMessage(getResolvedUsageMessage(metadata));
             configure(builder);
-            executor = builder.build(getCallback());
+            executor = (ArgumentWindowExecutor) builder.build(getCallback());
         }
 
         return executor;
@@ -0,0 +1,113 @@
+package io.github.llewvallis.commandbuilder;
+
+import org.bukkit.command.CommandSender;
+
+import java.util.*;
+
+/**
+ * The resolved permissions of the subcommands of a built composite command.
+ *
+ * Subcommands are kept in an array sorted by name, alongside the {@link PermissionCache} bit of each one's permission,
+ * so listing the subcommands a sender may use is a filter over the array using the sender's cached permission bits.
+ */
+/* package-private */ final class SubCommandPermissions {
+
+    private static final int NO_PERMISSION = -1;
+
+    private final SubCommand[] subCommands;
+    private final String[] permissions;
+    private final int[] bits;
+    private final Map<String, Integer> indices = new HashMap<>();
+
+    // Each distinct bit used by the subcommands, checked together the first time a sender lists them
+    private final int[] distinctBits;
+
+    /* package-private */ SubCommandPermissions(Map<String, SubCommand> subCommands, Map<String, Object> metadata) {
+        this.subCommands = subCommands.values().toArray(new SubCommand[0]);
+        Arrays.sort(this.subCommands, Comparator.comparing(SubCommand::getName));
+
+        permissions = new String[this.subCommands.length];
+        bits = new int[this.subCommands.length];
+        Set<Integer> distinctBits = new LinkedHashSet<>();
+
+        for (int i = 0; i < this.subCommands.length; i++) {
+            SubCommand subCommand = this.subCommands[i];
+            indices.put(subCommand.getName(), i);
+
+            permissions[i] = subCommand.getResolvedPermission(metadata).orElse(null);
+            if (permissions[i] == null) {
+                bits[i] = NO_PERMISSION;
+            } else {
+                bits[i] = PermissionCache.getBit(permissions[i]);
+                distinctBits.add(bits[i]);
+            }
+        }
+
+        this.distinctBits = distinctBits.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * Check whether a sender may use a subcommand, without going through the cache.
+     */
+    /* package-private */ boolean isPermitted(CommandSender sender, SubCommand subCommand) {
+        Integer index = indices.get(subCommand.getName());
+        if (index == null) {
+            return false;
+        }
+
+        String permission = permissions[index];
+        return permission == null || sender.hasPermission(permission);
+    }
+
+    /**
+     * The subcommands a sender may use ordered by name, using the sender's cached permissions.
+     */
+    /* package-private */ List<SubCommand> permitted(CommandSender sender) {
+        return permitted(getSignature(sender));
+    }
+
+    /**
+     * A bitset of the subcommands a sender may use, indexed by their position in name order. Senders with the same
+     * signature see the same listings.
+     */
+    /* package-private */ long[] getSignature(CommandSender sender) {
+        long[] granted = PermissionCache.getGranted(sender, distinctBits);
+        long[] signature = new long[(subCommands.length + 63) >>> 6];
+
+        for (int i = 0; i < subCommands.length; i++) {
+            if (bits[i] == NO_PERMISSION || PermissionCache.isSet(granted, bits[i])) {
+                signature[i >>> 6] |= 1L << i;
+            }
+        }
+
+        return signature;
+    }
+
+    /**
+     * The subcommands in a signature ordered by name.
+     */
+    /* package-private */ List<SubCommand> permitted(long[] signature) {
+        List<SubCommand> result = new ArrayList<>(subCommands.length);
+
+        for (int i = 0; i < subCommands.length; i++) {
+            if ((signature[i >>> 6] & (1L << i)) != 0) {
+                result.add(subCommands[i]);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Whether a subcommand should be listed for a sender, using the sender's cached permissions.
+     */
+    /* package-private */ boolean isListed(CommandSender sender, String name) {
+        Integer index = indices.get(name);
+        if (index == null) {
+            return false;
+        }
+
+        int bit = bits[index];
+        return bit == NO_PERMISSION || PermissionCache.isSet(PermissionCache.getGranted(sender, distinctBits), bit);
+    }
+}
@@ -0,0 +1,224 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.extern.java.Log;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An immutable trie of the names and aliases of the subcommands of a built composite command.
+ *
+ * Labels are matched ignoring case, and a label which is a prefix of the names and aliases of only one subcommand is
+ * routed to that subcommand. Routing a label takes time proportional to its length, plus the number of labels it is a
+ * prefix of when it is ambiguous before the sender's permissions are considered. Each node also records the range
+ * of labels below it in case folded order, so completing a subcommand name only visits the names which match.
+ */
+@Log
+/* package-private */ final class SubCommandRouter {
+
+    private final String[] labels;
+    private final SubCommand[] targets;
+    private final boolean[] aliases;
+    private final Node root;
+
+    private static final class Node {
+
+        private char[] edges = new char[0];
+        private Node[] children = new Node[0];
+
+        // The subcommand whose name or alias ends here, preferring names
+        private SubCommand exact = null;
+
+        // The only subcommand with a label below this node, or null if there are none or several
+        private SubCommand unique = null;
+        private boolean ambiguous = false;
+
+        private int start = -1;
+        private int end = -1;
+
+        private Node child(char edge) {
+            int index = Arrays.binarySearch(edges, edge);
+            return index >= 0 ? children[index] : null;
+        }
+
+        private Node getOrCreateChild(char edge) {
+            int index = Arrays.binarySearch(edges, edge);
+            if (index >= 0) {
+                return children[index];
+            }
+
+            int insertion = -index - 1;
+            Node child = new Node();
+
+            char[] newEdges = new char[edges.length + 1];
+            Node[] newChildren = new Node[children.length + 1];
+
+            System.arraycopy(edges, 0, newEdges, 0, insertion);
+            System.arraycopy(children, 0, newChildren, 0, insertion);
+            newEdges[insertion] = edge;
+            newChildren[insertion] = child;
+            System.arraycopy(edges, insertion, newEdges, insertion + 1, edges.length - insertion);
+            System.arraycopy(children, insertion, newChildren, insertion + 1, children.length - insertion);
+
+            edges = newEdges;
+            children = newChildren;
+            return child;
+        }
+
+        private void addTarget(SubCommand subCommand, int labelIndex) {
+            if (start == -1) {
+                start = labelIndex;
+            }
+
+            end = labelIndex + 1;
+
+            if (unique == null && !ambiguous) {
+                unique = subCommand;
+            } else if (unique != subCommand) {
+                unique = null;
+                ambiguous = true;
+            }
+        }
+    }
+
+    private SubCommandRouter(String[] labels, SubCommand[] targets, boolean[] aliases, Node root) {
+        this.labels = labels;
+        this.targets = targets;
+        this.aliases = aliases;
+        this.root = root;
+    }
+
+    /* package-private */ static SubCommandRouter of(Collection<SubCommand> subCommands, Map<String, Object> metadata) {
+        List<String> labels = new ArrayList<>();
+        List<SubCommand> targets = new ArrayList<>();
+        List<Boolean> aliases = new ArrayList<>();
+
+        for (SubCommand subCommand : subCommands) {
+            labels.add(subCommand.getName());
+            targets.add(subCommand);
+            aliases.add(false);
+
+            for (String alias : subCommand.getResolvedAliases(metadata)) {
+                labels.add(alias);
+                targets.add(subCommand);
+                aliases.add(true);
+            }
+        }
+
+        Integer[] order = new Integer[labels.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+
+        Arrays.sort(order, Comparator.<Integer, String>comparing(i -> fold(labels.get(i)))
+                .thenComparing(aliases::get)
+                .thenComparing(labels::get));
+
+        String[] sortedLabels = new String[order.length];
+        SubCommand[] sortedTargets = new SubCommand[order.length];
+        boolean[] sortedAliases = new boolean[order.length];
+        Node root = new Node();
+
+        for (int i = 0; i < order.length; i++) {
+            String label = labels.get(order[i]);
+            SubCommand target = targets.get(order[i]);
+            boolean alias = aliases.get(order[i]);
+
+            sortedLabels[i] = label;
+            sortedTargets[i] = target;
+            sortedAliases[i] = alias;
+
+            Node node = root;
+            node.addTarget(target, i);
+
+            for (int j = 0; j < label.length(); j++) {
+                node = node.getOrCreateChild(fold(label.charAt(j)));
+                node.addTarget(target, i);
+            }
+
+            if (node.exact == null) {
+                node.exact = target;
+            } else if (node.exact != target) {
+                log.warning("Subcommand label " + label + " is used by both " + node.exact.getName() + " and "
+                        + target.getName() + ", only the first will be reachable through it");
+            }
+        }
+
+        return new SubCommandRouter(sortedLabels, sortedTargets, sortedAliases, root);
+    }
+
+    /**
+     * Find the subcommand a label refers to, or null if it refers to none or is an ambiguous prefix.
+     *
+     * A prefix is only ambiguous amongst the subcommands which pass a filter, so subcommands hidden from a sender don't
+     * stop them from using a prefix of a subcommand they can see. Names and aliases are matched without the filter.
+     */
+    /* package-private */ SubCommand route(String label, Predicate<SubCommand> filter) {
+        Node node = walk(label);
+        if (node == null) {
+            return null;
+        } else if (node.exact != null) {
+            return node.exact;
+        } else if (!node.ambiguous) {
+            return node.unique;
+        }
+
+        SubCommand result = null;
+        for (int i = node.start; i < node.end; i++) {
+            SubCommand target = targets[i];
+
+            if (target != result && filter.test(target)) {
+                if (result != null) {
+                    return null;
+                }
+
+                result = target;
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * The names, not including aliases, of the subcommands starting with a prefix which pass a filter, in case folded
+     * order.
+     */
+    /* package-private */ List<String> complete(String prefix, Predicate<String> filter) {
+        Node node = walk(prefix);
+        if (node == null || node.start == -1) {
+            return new ArrayList<>(0);
+        }
+
+        List<String> completes = new ArrayList<>(node.end - node.start);
+        for (int i = node.start; i < node.end; i++) {
+            if (!aliases[i] && filter.test(labels[i])) {
+                completes.add(labels[i]);
+            }
+        }
+
+        return completes;
+    }
+
+    private Node walk(String label) {
+        Node node = root;
+
+        for (int i = 0; i < label.length() && node != null; i++) {
+            node = node.child(fold(label.charAt(i)));
+        }
+
+        return node;
+    }
+
+    private static String fold(String string) {
+        StringBuilder builder = new StringBuilder(string.length());
+        for (int i = 0; i < string.length(); i++) {
+            builder.append(fold(string.charAt(i)));
+        }
+
+        return builder.toString();
+    }
+
+    private static char fold(char character) {
+        return Character.toLowerCase(Character.toUpperCase(character));
+    }
+}
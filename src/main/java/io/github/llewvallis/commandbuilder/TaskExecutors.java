@@ -0,0 +1,74 @@
+package io.github.llewvallis.commandbuilder;
+
+import lombok.experimental.UtilityClass;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides {@link Executor}s which can be configured on command builders.
+ */
+@UtilityClass
+public class TaskExecutors {
+
+    private final Executor DIRECT = Runnable::run;
+
+    /**
+     * An executor which runs each task immediately on the calling thread.
+     *
+     * This is the default executor used by builders. It needs no server, which also makes it a convenient stand-in
+     * when testing commands.
+     */
+    public Executor direct() {
+        return DIRECT;
+    }
+
+    /**
+     * An executor which runs each task on the Bukkit scheduler's asynchronous thread pool on behalf of a plugin.
+     */
+    public Executor bukkitAsync(Plugin plugin) {
+        return task -> Bukkit.getScheduler().runTaskAsynchronously(plugin, task);
+    }
+
+    /**
+     * A shared executor suited to command callbacks which block on I/O.
+     *
+     * On Java 21 and later this starts a virtual thread per task. Otherwise it is a pool of daemon threads with a
+     * bounded queue, which rejects tasks once the queue is full. This is the default executor for
+     * {@link ExecuteCommand#async()}.
+     */
+    public Executor asyncCallbacks() {
+        return AsyncCallbackExecutorHolder.EXECUTOR;
+    }
+
+    // Holds the executor in its own class so that it is only created once it is needed
+    private static class AsyncCallbackExecutorHolder {
+
+        private static final int POOL_SIZE = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+        private static final int QUEUE_CAPACITY = 1024;
+
+        private static final Executor EXECUTOR = createExecutor();
+
+        private static Executor createExecutor() {
+            try {
+                Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+                return (Executor) factory.invoke(null);
+            } catch (ReflectiveOperationException e) {
+                AtomicInteger threadCount = new AtomicInteger();
+
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, 60, TimeUnit.SECONDS,
+                        new ArrayBlockingQueue<>(QUEUE_CAPACITY), task -> {
+                            Thread thread = new Thread(task, "command-builder-callback-" + threadCount.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+                pool.allowCoreThreadTimeOut(true);
+                return pool;
+            }
+        }
+    }
+}
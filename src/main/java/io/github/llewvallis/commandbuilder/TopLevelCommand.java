@@ -1,5 +1,6 @@
 package io.github.llewvallis.commandbuilder;
 
+import lombok.Synchronized;
 import org.bukkit.command.TabExecutor;
 
 /**
@@ -7,7 +8,7 @@ import org.bukkit.command.TabExecutor;
  */
 public abstract class TopLevelCommand {
 
-    private TabExecutor executor = null;
+    private volatile TabExecutor executor = null;
 
     /**
      * The name and label of the command to be registered.
@@ -35,6 +36,12 @@ public abstract class TopLevelCommand {
     }
 
     /* package-private */ TabExecutor getOrCreateExecutor() {
+        TabExecutor result = executor;
+        return result != null ? result : createExecutor();
+    }
+
+    @Synchronized
+    private TabExecutor createExecutor() {
         if (executor == null) {
             CommandBuilder builder = new CommandBuilder();
             configure(builder);
@@ -0,0 +1,167 @@
+package io.github.llewvallis.commandbuilder;
+
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * The values of a variadic argument, parsed one at a time as they are read rather than all up front.
+ *
+ * An {@link ExecuteCommand} method can accept this as its last parameter instead of a varargs array. The argument
+ * strings are then not checked while the command is matched, and each value is parsed from the raw arguments of the
+ * command whenever it is read, without being retained. A command handling thousands of values therefore uses constant
+ * memory, and one which stops reading early never parses the rest.
+ *
+ * When an argument can't be parsed, the read throws a {@link LazyArgumentParseException}. If that escapes the callback
+ * method, it is reported to the sender as the matching parse error would have been.
+ *
+ * Values are parsed again on each read, so callbacks which need a value more than once should keep it themselves.
+ */
+public final class VariadicArguments<T> implements Iterable<T> {
+
+    private final ArgumentWindow argumentStrings;
+    private final int start;
+    private final ArgumentParser<? extends T> parser;
+    private final CommandContext context;
+
+    // Values which were parsed before the callback was invoked, in which case the other fields are unused
+    private final List<T> values;
+
+    private VariadicArguments(ArgumentWindow argumentStrings, int start, ArgumentParser<? extends T> parser,
+                              CommandContext context, List<T> values) {
+        this.argumentStrings = argumentStrings;
+        this.start = start;
+        this.parser = parser;
+        this.context = context;
+        this.values = values;
+    }
+
+    /* package-private */ static <T> VariadicArguments<T> lazy(ArgumentWindow argumentStrings, int start,
+                                                               ArgumentParser<? extends T> parser,
+                                                               CommandContext context) {
+        return new VariadicArguments<>(argumentStrings, start, parser, context, null);
+    }
+
+    /* package-private */ static <T> VariadicArguments<T> of(List<T> values) {
+        return new VariadicArguments<>(null, 0, null, null, values);
+    }
+
+    /**
+     * The number of values, which is known without parsing any of them.
+     */
+    public int size() {
+        return values != null ? values.size() : argumentStrings.size() - start;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Parse the value at an index.
+     *
+     * @throws IndexOutOfBoundsException if there is no value at the index
+     * @throws LazyArgumentParseException if the argument at the index is invalid
+     */
+    public T get(int index) {
+        if (values != null) {
+            return values.get(index);
+        }
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for " + size() + " values");
+        }
+
+        int position = start + index;
+        String argumentString = argumentStrings.get(position);
+
+        try {
+            return parser.parse(argumentString, position, context);
+        } catch (ArgumentParseException e) {
+            throw new LazyArgumentParseException(argumentString, position, e);
+        }
+    }
+
+    /**
+     * The argument string a value is parsed from.
+     *
+     * @throws IndexOutOfBoundsException if there is no value at the index
+     * @throws UnsupportedOperationException if the values were parsed before the callback was invoked, which happens
+     * when the command's callback is not a plain {@link ReflectionCommandCallback}
+     */
+    public String getArgumentString(int index) {
+        if (values != null) {
+            throw new UnsupportedOperationException("the argument strings of eagerly parsed values are unavailable");
+        }
+
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("index " + index + " out of bounds for " + size() + " values");
+        }
+
+        return argumentStrings.get(start + index);
+    }
+
+    /**
+     * A view of the values which parses each one when it is read.
+     */
+    public List<T> asList() {
+        return new AbstractList<>() {
+            @Override
+            public T get(int index) {
+                return VariadicArguments.this.get(index);
+            }
+
+            @Override
+            public int size() {
+                return VariadicArguments.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private int index = 0;
+
+            @Override
+            public boolean hasNext() {
+                return index < size();
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+
+                return get(index++);
+            }
+        };
+    }
+
+    @Override
+    public Spliterator<T> spliterator() {
+        return Spliterators.spliterator(iterator(), size(), Spliterator.ORDERED);
+    }
+
+    /**
+     * A sequential stream which parses each value as it is consumed.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    @Override
+    public String toString() {
+        if (values != null) {
+            return values.toString();
+        }
+
+        return argumentStrings.subList(start, argumentStrings.size()).toString();
+    }
+}
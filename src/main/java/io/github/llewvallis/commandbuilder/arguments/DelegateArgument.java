@@ -3,14 +3,18 @@ package io.github.llewvallis.commandbuilder.arguments;
 import io.github.llewvallis.commandbuilder.ArgumentParseException;
 import io.github.llewvallis.commandbuilder.ArgumentParser;
 import io.github.llewvallis.commandbuilder.CommandContext;
+import io.github.llewvallis.commandbuilder.CompletionSink;
 import lombok.RequiredArgsConstructor;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An argument which delegates {@link #parse(String, int, CommandContext)},
- * {@link #complete(List, String, int, CommandContext)} and {@link #isOptional()} to an underlying instance.
+ * {@link #complete(List, String, int, CommandContext)}, {@link #completeAsync(List, String, int, CommandContext)},
+ * {@link #completeInto(List, String, int, CommandContext, CompletionSink)} and {@link #isOptional()} to an underlying
+ * instance.
  */
 @RequiredArgsConstructor
 public class DelegateArgument<T> implements ArgumentParser<T> {
@@ -27,6 +31,18 @@ public class DelegateArgument<T> implements ArgumentParser<T> {
         return underlying.complete(parsedArguments, currentArgument, position, context);
     }
 
+    @Override
+    public CompletableFuture<Set<String>> completeAsync(List<Object> parsedArguments, String currentArgument,
+                                                        int position, CommandContext context) {
+        return underlying.completeAsync(parsedArguments, currentArgument, position, context);
+    }
+
+    @Override
+    public void completeInto(List<Object> parsedArguments, String currentArgument, int position,
+                             CommandContext context, CompletionSink sink) {
+        underlying.completeInto(parsedArguments, currentArgument, position, context, sink);
+    }
+
     @Override
     public boolean isOptional() {
         return underlying.isOptional();
@@ -19,7 +19,7 @@ import java.util.Set;
 @With
 @NoArgsConstructor
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
-public class FloatArgument implements ArgumentParser<Float> {
+public class FloatArgument implements FloatArgumentParser {
 
     private float min = -Float.MAX_VALUE;
     private float max = Float.MAX_VALUE;
@@ -39,7 +39,7 @@ public class FloatArgument implements ArgumentParser<Float> {
     }
 
     @Override
-    public Float parse(String argument, int position, CommandContext context) throws ArgumentParseException {
+    public float parseFloat(String argument, int position, CommandContext context) throws ArgumentParseException {
         float value;
         try {
             value = Float.parseFloat(argument);
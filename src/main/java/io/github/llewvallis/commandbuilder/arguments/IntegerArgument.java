@@ -19,7 +19,7 @@ import java.util.Set;
 @With
 @NoArgsConstructor
 @AllArgsConstructor(access = AccessLevel.PRIVATE)
-public class IntegerArgument implements ArgumentParser<Integer> {
+public class IntegerArgument implements IntArgumentParser {
 
     private int min = Integer.MIN_VALUE;
     private int max = Integer.MAX_VALUE;
@@ -39,7 +39,7 @@ public class IntegerArgument implements ArgumentParser<Integer> {
     }
 
     @Override
-    public Integer parse(String argument, int position, CommandContext context) throws ArgumentParseException {
+    public int parseInt(String argument, int position, CommandContext context) throws ArgumentParseException {
         int value;
         try {
             value = Integer.parseInt(argument);
@@ -6,22 +6,73 @@ import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 /**
  * An argument that matches only a set of whitelisted strings that are also used as tab completions.
+ *
+ * The strings are held in a {@link PrefixIndex}, so only those matching the current argument are offered as completions
+ * and large sets can be completed cheaply.
  */
 public class StringSetArgument implements ArgumentParser<String> {
 
-    private final Set<String> possibleValues;
+    // Null unless the argument was created from a set
+    private final Set<String> source;
+    private volatile PrefixIndex index;
 
+    /**
+     * Create an argument backed by a set, which may be changed later on to change the accepted values.
+     *
+     * The set is only read when the argument is created and when {@link #refresh()} is called, since parsing and tab
+     * completion may happen on other threads. After changing the set, call {@link #refresh()} on the thread which
+     * changed it. Use {@link #copyOf(Collection)} for values which never change.
+     */
     public StringSetArgument(Set<String> possibleValues) {
-        this.possibleValues = possibleValues;
+        source = possibleValues;
+        index = PrefixIndex.of(possibleValues);
     }
 
+    /**
+     * Create an argument accepting a fixed set of values.
+     */
     public StringSetArgument(String... possibleValues) {
-        this(Set.of(possibleValues));
+        this(null, PrefixIndex.of(Set.of(possibleValues)));
+    }
+
+    private StringSetArgument(Set<String> source, PrefixIndex index) {
+        this.source = source;
+        this.index = index;
+    }
+
+    /**
+     * Create an argument accepting a copy of some values, which doesn't see any later changes to them.
+     */
+    public static StringSetArgument copyOf(Collection<String> possibleValues) {
+        return new StringSetArgument(null, PrefixIndex.of(Set.copyOf(possibleValues)));
+    }
+
+    /**
+     * Re-read the set this argument is backed by, so that it accepts and completes the set's current values.
+     *
+     * @throws IllegalStateException if the argument was not created from a set
+     */
+    public void refresh() {
+        if (source == null) {
+            throw new IllegalStateException("argument is not backed by a set, use update instead");
+        }
+
+        index = PrefixIndex.of(source);
+    }
+
+    /**
+     * Replace the values this argument accepts and completes with a copy of some other values.
+     *
+     * An argument backed by a set stops using it until {@link #refresh()} is called.
+     */
+    public void update(Collection<String> possibleValues) {
+        index = PrefixIndex.of(Set.copyOf(possibleValues));
     }
 
     @ParserAnnotation(StringSetArgument.class)
@@ -39,15 +90,25 @@ public class StringSetArgument implements ArgumentParser<String> {
 
     @Override
     public String parse(String argument, int position, CommandContext context) throws ArgumentParseException {
-        if (possibleValues.contains(argument)) {
+        PrefixIndex current = index;
+
+        if (current.contains(argument)) {
             return argument;
         } else {
-            throw new ArgumentParseException("expected one of " + possibleValues + " but found '" + argument + "'");
+            throw new ArgumentParseException("expected one of " + current + " but found '" + argument + "'");
         }
     }
 
     @Override
     public Set<String> complete(List<Object> parsedArguments, String currentArgument, int position, CommandContext context) {
-        return possibleValues;
+        return index.matching(currentArgument);
+    }
+
+    @Override
+    public void completeInto(List<Object> parsedArguments, String currentArgument, int position,
+                             CommandContext context, CompletionSink sink) {
+        for (String value : index.matching(sink.getPrefix())) {
+            sink.accept(value);
+        }
     }
 }
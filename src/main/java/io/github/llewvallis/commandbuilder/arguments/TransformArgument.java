@@ -3,10 +3,12 @@ package io.github.llewvallis.commandbuilder.arguments;
 import io.github.llewvallis.commandbuilder.ArgumentParseException;
 import io.github.llewvallis.commandbuilder.ArgumentParser;
 import io.github.llewvallis.commandbuilder.CommandContext;
+import io.github.llewvallis.commandbuilder.CompletionSink;
 import lombok.AllArgsConstructor;
 
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * A delegating argument which filters and maps the the result of
@@ -40,6 +42,18 @@ public class TransformArgument<T, U> implements ArgumentParser<U> {
         return underlying.complete(parsedArguments, currentArgument, position, context);
     }
 
+    @Override
+    public CompletableFuture<Set<String>> completeAsync(List<Object> parsedArguments, String currentArgument,
+                                                        int position, CommandContext context) {
+        return underlying.completeAsync(parsedArguments, currentArgument, position, context);
+    }
+
+    @Override
+    public void completeInto(List<Object> parsedArguments, String currentArgument, int position,
+                             CommandContext context, CompletionSink sink) {
+        underlying.completeInto(parsedArguments, currentArgument, position, context, sink);
+    }
+
     @Override
     public boolean isOptional() {
         return underlying.isOptional();
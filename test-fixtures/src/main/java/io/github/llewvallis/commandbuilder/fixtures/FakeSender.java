@@ -0,0 +1,279 @@
+package io.github.llewvallis.commandbuilder.fixtures;
+
+import lombok.Getter;
+import net.md_5.bungee.api.ChatMessageType;
+import net.md_5.bungee.api.chat.BaseComponent;
+import net.md_5.bungee.api.chat.TextComponent;
+import org.bukkit.Location;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.entity.Player;
+import org.bukkit.permissions.Permission;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fake player or console created by a {@link FakeServer}, which records the messages it is sent.
+ *
+ * Players have the permissions which have been granted to them, or every permission if they are an operator. The
+ * console always has every permission. Messages sent through {@code spigot().sendMessage} are recorded as their
+ * components as well as their plain text.
+ */
+public class FakeSender {
+
+    private static final Location ORIGIN = new Location(null, 0, 0, 0);
+
+    @Getter
+    private final String name;
+
+    /**
+     * The unique ID of a player, or null for the console.
+     */
+    @Getter
+    private final UUID uniqueId;
+
+    /**
+     * The Bukkit sender backed by this fake, which is a {@link Player} or {@link ConsoleCommandSender}.
+     */
+    @Getter
+    private final CommandSender sender;
+
+    private final FakeServer server;
+    private final CommandSender.Spigot spigot;
+
+    private final Set<String> permissions = ConcurrentHashMap.newKeySet();
+    private volatile boolean op;
+
+    private final List<String> messages = Collections.synchronizedList(new ArrayList<>());
+    private final List<BaseComponent[]> components = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicLong messageCount = new AtomicLong();
+    private volatile boolean recording = true;
+
+    /* package-private */ FakeSender(FakeServer server, String name, UUID uniqueId) {
+        this.server = server;
+        this.name = name;
+        this.uniqueId = uniqueId;
+        this.op = uniqueId == null;
+
+        if (uniqueId == null) {
+            sender = FakeServer.proxy(ConsoleCommandSender.class, this::handle);
+            spigot = new SenderSpigot();
+        } else {
+            sender = FakeServer.proxy(Player.class, this::handle);
+            spigot = new PlayerSpigot();
+        }
+    }
+
+    /**
+     * The sender as a player, throwing if it is the console.
+     */
+    public Player getPlayer() {
+        if (!(sender instanceof Player)) {
+            throw new IllegalStateException(name + " is not a player");
+        }
+
+        return (Player) sender;
+    }
+
+    /**
+     * Give the sender a permission.
+     */
+    public FakeSender grant(String... permissions) {
+        Collections.addAll(this.permissions, permissions);
+        return this;
+    }
+
+    /**
+     * Take a permission away from the sender.
+     */
+    public FakeSender revoke(String... permissions) {
+        for (String permission : permissions) {
+            this.permissions.remove(permission);
+        }
+
+        return this;
+    }
+
+    /**
+     * Set whether the sender is an operator, and so has every permission.
+     */
+    public FakeSender op(boolean op) {
+        this.op = op;
+        return this;
+    }
+
+    /**
+     * Set whether messages should be kept, which is on by default. Messages are always counted.
+     *
+     * Load tests should turn this off so that the messages of a long run aren't all held in memory.
+     */
+    public FakeSender recording(boolean recording) {
+        this.recording = recording;
+        return this;
+    }
+
+    public boolean hasPermission(String permission) {
+        return op || permissions.contains(permission);
+    }
+
+    /**
+     * The plain text of each recorded message, including those sent as components.
+     */
+    public List<String> getMessages() {
+        synchronized (messages) {
+            return List.copyOf(messages);
+        }
+    }
+
+    /**
+     * The components of each recorded message sent through {@code spigot().sendMessage}.
+     */
+    public List<BaseComponent[]> getComponents() {
+        synchronized (components) {
+            return List.copyOf(components);
+        }
+    }
+
+    /**
+     * The number of messages the sender has been sent, whether or not they were recorded.
+     */
+    public long getMessageCount() {
+        return messageCount.get();
+    }
+
+    /**
+     * Forget the recorded messages and reset the message count.
+     */
+    public void clearMessages() {
+        messages.clear();
+        components.clear();
+        messageCount.set(0);
+    }
+
+    private void receive(String... lines) {
+        messageCount.incrementAndGet();
+
+        if (recording) {
+            Collections.addAll(messages, lines);
+        }
+    }
+
+    private void receive(BaseComponent... message) {
+        messageCount.incrementAndGet();
+
+        if (recording) {
+            messages.add(TextComponent.toPlainText(message));
+            components.add(message);
+        }
+    }
+
+    private Object handle(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+            case "getDisplayName":
+            case "getPlayerListName":
+                return name;
+            case "getUniqueId":
+                return uniqueId;
+            case "getServer":
+                return server.getServer();
+            case "hasPermission":
+                return hasPermission(permissionName(args[0]));
+            case "isPermissionSet":
+                return permissions.contains(permissionName(args[0]));
+            case "isOp":
+                return op;
+            case "setOp":
+                op = (boolean) args[0];
+                return null;
+            case "sendMessage":
+                // The last argument is the message, following an optional sender ID
+                Object message = args[args.length - 1];
+                receive(message instanceof String[] ? (String[]) message : new String[]{ (String) message });
+                return null;
+            case "sendRawMessage":
+                receive((String) args[args.length - 1]);
+                return null;
+            case "spigot":
+                return spigot;
+            case "getLocation":
+                return ORIGIN.clone();
+            case "isOnline":
+                return server.isOnline(this);
+            case "canSee":
+                return true;
+            case "isConversing":
+                return false;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private static String permissionName(Object permission) {
+        return permission instanceof Permission ? ((Permission) permission).getName() : (String) permission;
+    }
+
+    @Override
+    public String toString() {
+        return "FakeSender(" + name + ")";
+    }
+
+    private class SenderSpigot extends CommandSender.Spigot {
+
+        @Override
+        public void sendMessage(BaseComponent component) {
+            receive(component);
+        }
+
+        @Override
+        public void sendMessage(BaseComponent... components) {
+            receive(components);
+        }
+
+        public void sendMessage(UUID sender, BaseComponent component) {
+            receive(component);
+        }
+
+        public void sendMessage(UUID sender, BaseComponent... components) {
+            receive(components);
+        }
+    }
+
+    private class PlayerSpigot extends Player.Spigot {
+
+        @Override
+        public void sendMessage(BaseComponent component) {
+            receive(component);
+        }
+
+        @Override
+        public void sendMessage(BaseComponent... components) {
+            receive(components);
+        }
+
+        public void sendMessage(UUID sender, BaseComponent component) {
+            receive(component);
+        }
+
+        public void sendMessage(UUID sender, BaseComponent... components) {
+            receive(components);
+        }
+
+        @Override
+        public void sendMessage(ChatMessageType position, BaseComponent component) {
+            receive(component);
+        }
+
+        @Override
+        public void sendMessage(ChatMessageType position, BaseComponent... components) {
+            receive(components);
+        }
+    }
+}
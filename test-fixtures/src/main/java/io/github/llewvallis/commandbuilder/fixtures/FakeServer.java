@@ -0,0 +1,333 @@
+package io.github.llewvallis.commandbuilder.fixtures;
+
+import lombok.Getter;
+import org.bukkit.Bukkit;
+import org.bukkit.Server;
+import org.bukkit.command.PluginCommand;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * An in-memory stand-in for a Bukkit server, with just enough of the API to register and run commands.
+ *
+ * The server has a main thread of its own, which tasks scheduled with {@link BukkitScheduler#runTask(Plugin, Runnable)}
+ * run on and which {@link Bukkit#isPrimaryThread()} recognises. Asynchronous tasks are run on a cached thread pool.
+ * Events are not fired, and any part of the API which isn't faked throws an {@link UnsupportedOperationException}.
+ *
+ * Bukkit only allows its server to be set once, so there is a single fake server per JVM which is shared by every
+ * test.
+ */
+public class FakeServer {
+
+    private static FakeServer instance = null;
+
+    /**
+     * The Bukkit server backed by this fake.
+     */
+    @Getter
+    private final Server server = proxy(Server.class, this::handleServer);
+
+    private final PluginManager pluginManager = proxy(PluginManager.class, this::handlePluginManager);
+    private final BukkitScheduler scheduler = proxy(BukkitScheduler.class, this::handleScheduler);
+    private final Logger logger = Logger.getLogger("FakeServer");
+
+    private final ExecutorService mainThreadExecutor;
+    private final Thread mainThread;
+    private final ExecutorService asyncExecutor;
+    private final AtomicInteger nextTaskId = new AtomicInteger();
+
+    private final Map<String, PluginCommand> commands = new ConcurrentHashMap<>();
+    private final Map<UUID, FakeSender> players = new ConcurrentHashMap<>();
+
+    /**
+     * The console, which has every permission.
+     */
+    @Getter
+    private final FakeSender console = new FakeSender(this, "CONSOLE", null);
+
+    private FakeServer() {
+        mainThreadExecutor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "Server thread");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try {
+            mainThread = mainThreadExecutor.submit(Thread::currentThread).get();
+        } catch (InterruptedException | ExecutionException e) {
+            throw new IllegalStateException("could not start the main thread", e);
+        }
+
+        AtomicInteger asyncThreadCount = new AtomicInteger();
+        asyncExecutor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "Fake Scheduler Thread - " + asyncThreadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Get the fake server, installing it into {@link Bukkit} the first time this is called.
+     */
+    public static synchronized FakeServer install() {
+        if (instance == null) {
+            instance = new FakeServer();
+            Bukkit.setServer(instance.server);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Create an enabled plugin whose data folder is a new temporary directory.
+     */
+    public Plugin createPlugin(String name) {
+        File dataFolder;
+        try {
+            dataFolder = Files.createTempDirectory(name).toFile();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return createPlugin(name, dataFolder);
+    }
+
+    /**
+     * Create an enabled plugin with a data folder, which may be null for plugins that don't use it.
+     */
+    public Plugin createPlugin(String name, File dataFolder) {
+        PluginDescriptionFile description = new PluginDescriptionFile(name, "1.0", "fake." + name);
+        return proxy(Plugin.class, (method, args) -> handlePlugin(method, name, description, dataFolder));
+    }
+
+    /**
+     * Declare a command for a plugin, as if it were in its {@code plugin.yml}, replacing any command with the same
+     * name.
+     */
+    public PluginCommand createCommand(Plugin plugin, String name) {
+        PluginCommand command;
+        try {
+            Constructor<PluginCommand> constructor = PluginCommand.class.getDeclaredConstructor(String.class,
+                    Plugin.class);
+            constructor.setAccessible(true);
+            command = constructor.newInstance(name, plugin);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("could not create command " + name, e);
+        }
+
+        commands.put(name, command);
+        return command;
+    }
+
+    /**
+     * Connect a player with a random unique ID and no permissions.
+     */
+    public FakeSender addPlayer(String name) {
+        FakeSender player = new FakeSender(this, name, UUID.randomUUID());
+        players.put(player.getUniqueId(), player);
+        return player;
+    }
+
+    /**
+     * Disconnect a player. Note that the quit event is not fired.
+     */
+    public void removePlayer(FakeSender player) {
+        players.remove(player.getUniqueId());
+    }
+
+    public Collection<FakeSender> getPlayers() {
+        return List.copyOf(players.values());
+    }
+
+    /* package-private */ boolean isOnline(FakeSender player) {
+        return players.containsKey(player.getUniqueId());
+    }
+
+    public boolean isPrimaryThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    /**
+     * Run a task on the main thread and wait for its result, running it immediately if this is the main thread.
+     */
+    public <T> T callOnMainThread(Callable<T> task) throws Exception {
+        if (isPrimaryThread()) {
+            return task.call();
+        }
+
+        try {
+            return mainThreadExecutor.submit(task).get();
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception) {
+                throw (Exception) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            } else {
+                throw e;
+            }
+        }
+    }
+
+    private Object handleServer(Method method, Object[] args) {
+        switch (method.getName()) {
+            case "getName":
+                return "FakeServer";
+            case "getVersion":
+            case "getBukkitVersion":
+                return "fake";
+            case "getLogger":
+                return logger;
+            case "getPluginCommand":
+                return commands.get((String) args[0]);
+            case "getPluginManager":
+                return pluginManager;
+            case "getScheduler":
+                return scheduler;
+            case "isPrimaryThread":
+                return isPrimaryThread();
+            case "getConsoleSender":
+                return console.getSender();
+            case "getOnlinePlayers":
+                List<Player> onlinePlayers = new ArrayList<>();
+                for (FakeSender player : players.values()) {
+                    onlinePlayers.add(player.getPlayer());
+                }
+                return onlinePlayers;
+            case "getPlayer":
+                if (args[0] instanceof UUID) {
+                    FakeSender player = players.get(args[0]);
+                    return player == null ? null : player.getPlayer();
+                }
+                // Falls through, since Bukkit also matches player names by prefix but an exact match is enough here
+            case "getPlayerExact":
+                for (FakeSender player : players.values()) {
+                    if (player.getName().equalsIgnoreCase((String) args[0])) {
+                        return player.getPlayer();
+                    }
+                }
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object handlePlugin(Method method, String name, PluginDescriptionFile description, File dataFolder) {
+        switch (method.getName()) {
+            case "getName":
+                return name;
+            case "getDescription":
+                return description;
+            case "getDataFolder":
+                return dataFolder;
+            case "getServer":
+                return server;
+            case "getLogger":
+                return logger;
+            case "isEnabled":
+                return true;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object handlePluginManager(Method method, Object[] args) {
+        switch (method.getName()) {
+            // Events are never fired, so there is no need to keep the listener
+            case "registerEvents":
+                return null;
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private Object handleScheduler(Method method, Object[] args) {
+        if (args == null || args.length != 2 || !(args[1] instanceof Runnable)) {
+            throw new UnsupportedOperationException(method.getName());
+        }
+
+        Plugin plugin = (Plugin) args[0];
+        Runnable task = (Runnable) args[1];
+
+        switch (method.getName()) {
+            case "runTask":
+                return createTask(plugin, true, mainThreadExecutor.submit(task));
+            case "runTaskAsynchronously":
+                return createTask(plugin, false, asyncExecutor.submit(task));
+            default:
+                throw new UnsupportedOperationException(method.getName());
+        }
+    }
+
+    private BukkitTask createTask(Plugin plugin, boolean sync, Future<?> future) {
+        int id = nextTaskId.incrementAndGet();
+
+        return proxy(BukkitTask.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getTaskId":
+                    return id;
+                case "getOwner":
+                    return plugin;
+                case "isSync":
+                    return sync;
+                case "isCancelled":
+                    return future.isCancelled();
+                case "cancel":
+                    future.cancel(false);
+                    return null;
+                default:
+                    throw new UnsupportedOperationException(method.getName());
+            }
+        });
+    }
+
+    /* package-private */ static <T> T proxy(Class<T> type, Handler handler) {
+        InvocationHandler invocationHandler = (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+            }
+
+            return handler.handle(method, args);
+        };
+
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{ type }, invocationHandler));
+    }
+
+    /* package-private */ interface Handler {
+
+        Object handle(Method method, Object[] args) throws Exception;
+    }
+}
@@ -0,0 +1,79 @@
+package io.github.llewvallis.commandbuilder.fixtures;
+
+/**
+ * Counts latencies in buckets which are about 3% wide, so percentiles can be read without keeping every sample.
+ *
+ * Values below 32 nanoseconds have a bucket each. Above that, each power of two is split into 32 buckets, up to about
+ * eighteen minutes where everything is counted in the last bucket. Not thread safe.
+ */
+/* package-private */ class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+
+    private final long[] counts = new long[(MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS];
+    private long totalCount = 0;
+
+    public void record(long nanos) {
+        counts[index(nanos)]++;
+        totalCount++;
+    }
+
+    /**
+     * Add the counts of another histogram to this one.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+
+        totalCount += other.totalCount;
+    }
+
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * The upper bound of the bucket containing the given percentile, or zero if nothing has been recorded.
+     */
+    public long getPercentile(double percentile) {
+        long threshold = Math.max(1, (long) Math.ceil(percentile / 100 * totalCount));
+
+        long count = 0;
+        for (int i = 0; i < counts.length; i++) {
+            count += counts[i];
+            if (count >= threshold) {
+                return upperBound(i);
+            }
+        }
+
+        return 0;
+    }
+
+    private static int index(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) Math.max(nanos, 0);
+        }
+
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        if (exponent > MAX_EXPONENT) {
+            return (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS - 1;
+        }
+
+        int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    private static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+
+        int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = index % SUB_BUCKETS;
+        long lowerBound = (1L << exponent) | ((long) subBucket << (exponent - SUB_BUCKET_BITS));
+        return lowerBound + (1L << (exponent - SUB_BUCKET_BITS)) - 1;
+    }
+}
@@ -0,0 +1,381 @@
+package io.github.llewvallis.commandbuilder.fixtures;
+
+import io.github.llewvallis.commandbuilder.AsyncTabCompleter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.java.Log;
+import org.bukkit.command.CommandSender;
+import org.bukkit.command.PluginCommand;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Simulates many players typing, tab completing and running commands at once on a {@link FakeServer}.
+ *
+ * Each player repeatedly picks one of the configured actions at random, weighted by their weights. Commands are run on
+ * the server's main thread like Bukkit does, so the players queue up behind one another. Tab completions are also run
+ * on the main thread unless {@link #asyncCompletion(boolean)} is set, in which case executors which implement
+ * {@link AsyncTabCompleter} are completed from the player's own thread, as they are on servers with asynchronous tab
+ * completion.
+ *
+ * Latencies are measured around the call into the command, so they don't include time spent waiting for the main
+ * thread.
+ */
+@Log
+@RequiredArgsConstructor
+public class LoadGenerator {
+
+    private static final String EXECUTE = "execute";
+    private static final String COMPLETE = "complete";
+
+    private final FakeServer server;
+
+    private final List<Action> actions = new ArrayList<>();
+    private int totalWeight = 0;
+
+    private int playerCount = 100;
+    private String[] permissions = new String[0];
+    private Duration warmUp = Duration.ofSeconds(2);
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration thinkTime = Duration.ZERO;
+    private boolean asyncCompletion = false;
+    private long seed = 0;
+
+    /**
+     * Type out the arguments of a command one key at a time, tab completing after each key, and then run it.
+     *
+     * The arguments are separated by spaces as they would be in chat, without the command's label.
+     */
+    public LoadGenerator type(PluginCommand command, String arguments, int weight) {
+        return addAction(new Action(command, arguments, ActionKind.TYPE, weight));
+    }
+
+    /**
+     * Tab complete a command with the given arguments.
+     */
+    public LoadGenerator complete(PluginCommand command, String arguments, int weight) {
+        return addAction(new Action(command, arguments, ActionKind.COMPLETE, weight));
+    }
+
+    /**
+     * Run a command with the given arguments.
+     */
+    public LoadGenerator execute(PluginCommand command, String arguments, int weight) {
+        return addAction(new Action(command, arguments, ActionKind.EXECUTE, weight));
+    }
+
+    /**
+     * Set how many players to simulate, which defaults to 100.
+     */
+    public LoadGenerator players(int playerCount) {
+        if (playerCount < 1) {
+            throw new IllegalArgumentException("there must be at least one player");
+        }
+
+        this.playerCount = playerCount;
+        return this;
+    }
+
+    /**
+     * Grant the simulated players some permissions, who otherwise have none.
+     */
+    public LoadGenerator permissions(String... permissions) {
+        this.permissions = permissions.clone();
+        return this;
+    }
+
+    /**
+     * Set how long to run before measuring, which defaults to two seconds.
+     */
+    public LoadGenerator warmUp(Duration warmUp) {
+        this.warmUp = warmUp;
+        return this;
+    }
+
+    /**
+     * Set how long to measure for, which defaults to ten seconds.
+     */
+    public LoadGenerator duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+
+    /**
+     * Set how long each player waits between actions, which defaults to not waiting at all.
+     */
+    public LoadGenerator thinkTime(Duration thinkTime) {
+        this.thinkTime = thinkTime;
+        return this;
+    }
+
+    /**
+     * Set whether tab completions are made from the players' threads, see {@link LoadGenerator}.
+     */
+    public LoadGenerator asyncCompletion(boolean asyncCompletion) {
+        this.asyncCompletion = asyncCompletion;
+        return this;
+    }
+
+    /**
+     * Set the seed which the players' choices are derived from, so that runs can be repeated.
+     */
+    public LoadGenerator seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+
+    /**
+     * Run the simulation, blocking until it is done.
+     */
+    public LoadReport run() throws InterruptedException {
+        if (actions.isEmpty()) {
+            throw new IllegalStateException("no actions have been added");
+        }
+
+        RunState state = new RunState();
+
+        List<SimulatedPlayer> players = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < playerCount; i++) {
+            FakeSender sender = server.addPlayer("player" + i)
+                    .recording(false)
+                    .grant(permissions);
+
+            SimulatedPlayer player = new SimulatedPlayer(sender, new Random(seed + i), state);
+            players.add(player);
+
+            Thread thread = new Thread(player, "Load generator player " + i);
+            thread.setDaemon(true);
+            threads.add(thread);
+        }
+
+        try {
+            threads.forEach(Thread::start);
+
+            Thread.sleep(warmUp.toMillis());
+            state.measuring = true;
+            long start = System.nanoTime();
+
+            Thread.sleep(duration.toMillis());
+            state.running = false;
+            long end = System.nanoTime();
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            return createReport(players, Duration.ofNanos(end - start));
+        } finally {
+            state.running = false;
+            players.forEach(player -> server.removePlayer(player.sender));
+        }
+    }
+
+    private LoadGenerator addAction(Action action) {
+        if (action.weight < 1) {
+            throw new IllegalArgumentException("weight must be at least one");
+        }
+
+        actions.add(action);
+        totalWeight += action.weight;
+        return this;
+    }
+
+    private LoadReport createReport(List<SimulatedPlayer> players, Duration measuredDuration) {
+        Map<String, OperationRecorder> merged = new HashMap<>();
+        for (SimulatedPlayer player : players) {
+            player.recorders.forEach((key, recorder) ->
+                    merged.computeIfAbsent(key, k -> new OperationRecorder(recorder.command, recorder.operation))
+                            .add(recorder));
+        }
+
+        double seconds = measuredDuration.toNanos() / 1e9;
+
+        List<LoadReport.OperationStats> operations = new ArrayList<>();
+        for (OperationRecorder recorder : merged.values()) {
+            long count = recorder.histogram.getTotalCount();
+            operations.add(new LoadReport.OperationStats(recorder.command, recorder.operation, count,
+                    recorder.errors, count / seconds, recorder.histogram));
+        }
+
+        operations.sort(Comparator.comparing(LoadReport.OperationStats::getCommand)
+                .thenComparing(LoadReport.OperationStats::getOperation));
+
+        return new LoadReport(measuredDuration, playerCount, operations);
+    }
+
+    private static String[] splitArguments(String arguments) {
+        // Bukkit drops the trailing empty argument when running a command, but keeps it when tab completing
+        return arguments.split(" ", -1);
+    }
+
+    private static String[] splitExecutedArguments(String arguments) {
+        return arguments.isEmpty() ? new String[0] : arguments.split(" ");
+    }
+
+    private enum ActionKind {
+        TYPE, COMPLETE, EXECUTE
+    }
+
+    @RequiredArgsConstructor
+    private static class Action {
+
+        private final PluginCommand command;
+        private final String arguments;
+        private final ActionKind kind;
+        private final int weight;
+    }
+
+    private static class RunState {
+
+        private volatile boolean running = true;
+        private volatile boolean measuring = false;
+        private final AtomicBoolean loggedFailure = new AtomicBoolean();
+    }
+
+    /**
+     * The latencies and failures of one operation on one command, as seen by a single player.
+     */
+    @RequiredArgsConstructor
+    private static class OperationRecorder {
+
+        private final String command;
+        private final String operation;
+        private final LatencyHistogram histogram = new LatencyHistogram();
+        private long errors = 0;
+
+        private void add(OperationRecorder other) {
+            histogram.add(other.histogram);
+            errors += other.errors;
+        }
+    }
+
+    @RequiredArgsConstructor
+    private class SimulatedPlayer implements Runnable {
+
+        private final FakeSender sender;
+        private final Random random;
+        private final RunState state;
+
+        // Only touched by the player's thread, or the main thread while the player waits for it
+        private final Map<String, OperationRecorder> recorders = new HashMap<>();
+
+        @Override
+        public void run() {
+            try {
+                while (state.running) {
+                    perform(pickAction());
+
+                    if (!thinkTime.isZero()) {
+                        LockSupport.parkNanos(thinkTime.toNanos());
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private Action pickAction() {
+            int choice = random.nextInt(totalWeight);
+
+            for (Action action : actions) {
+                choice -= action.weight;
+                if (choice < 0) {
+                    return action;
+                }
+            }
+
+            throw new AssertionError();
+        }
+
+        private void perform(Action action) throws InterruptedException {
+            switch (action.kind) {
+                case TYPE:
+                    for (int i = 0; i <= action.arguments.length() && state.running; i++) {
+                        complete(action.command, action.arguments.substring(0, i));
+                    }
+
+                    execute(action.command, action.arguments);
+                    break;
+                case COMPLETE:
+                    complete(action.command, action.arguments);
+                    break;
+                case EXECUTE:
+                    execute(action.command, action.arguments);
+                    break;
+            }
+        }
+
+        private void execute(PluginCommand command, String arguments) throws InterruptedException {
+            String[] argumentStrings = splitExecutedArguments(arguments);
+            CommandSender bukkitSender = sender.getSender();
+
+            onMainThread(() -> time(command, EXECUTE, () ->
+                    command.execute(bukkitSender, command.getName(), argumentStrings)));
+        }
+
+        private void complete(PluginCommand command, String arguments) throws InterruptedException {
+            String[] argumentStrings = splitArguments(arguments);
+            CommandSender bukkitSender = sender.getSender();
+
+            if (asyncCompletion && command.getTabCompleter() instanceof AsyncTabCompleter) {
+                AsyncTabCompleter completer = (AsyncTabCompleter) command.getTabCompleter();
+                time(command, COMPLETE, () ->
+                        completer.onTabCompleteAsync(bukkitSender, command, command.getName(), argumentStrings).join());
+            } else {
+                onMainThread(() -> time(command, COMPLETE, () ->
+                        command.tabComplete(bukkitSender, command.getName(), argumentStrings)));
+            }
+        }
+
+        private void onMainThread(Runnable task) throws InterruptedException {
+            try {
+                server.callOnMainThread(() -> {
+                    task.run();
+                    return null;
+                });
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        private void time(PluginCommand command, String operation, Runnable task) {
+            long start = System.nanoTime();
+
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                if (state.measuring) {
+                    recorder(command, operation).errors++;
+                }
+
+                if (state.loggedFailure.compareAndSet(false, true)) {
+                    log.log(Level.WARNING, "Failed to " + operation + " " + command.getName() +
+                            ", further failures will only be counted", e);
+                }
+
+                return;
+            }
+
+            long latency = System.nanoTime() - start;
+            if (state.measuring) {
+                recorder(command, operation).histogram.record(latency);
+            }
+        }
+
+        private OperationRecorder recorder(PluginCommand command, String operation) {
+            String key = command.getName() + " " + operation;
+            return recorders.computeIfAbsent(key, k -> new OperationRecorder(command.getName(), operation));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package io.github.llewvallis.commandbuilder.fixtures;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * The throughput and latency of each command and operation during a run of a {@link LoadGenerator}.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public class LoadReport {
+
+    /**
+     * How long was measured, excluding the warm up.
+     */
+    private final Duration duration;
+
+    private final int playerCount;
+
+    /**
+     * The statistics of each command and operation, ordered by command and then operation.
+     */
+    private final List<OperationStats> operations;
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        result.append(String.format("%d players for %.1fs%n", playerCount, duration.toMillis() / 1000.0));
+        result.append(String.format("%-20s %-10s %10s %8s %10s %10s %10s %10s%n", "command", "operation", "count",
+                "errors", "ops/s", "p50 (us)", "p99 (us)", "p999 (us)"));
+
+        for (OperationStats stats : operations) {
+            result.append(String.format("%-20s %-10s %10d %8d %10.1f %10.1f %10.1f %10.1f%n",
+                    stats.getCommand(), stats.getOperation(), stats.getCount(), stats.getErrors(),
+                    stats.getThroughput(), stats.getLatency(50) / 1000.0, stats.getLatency(99) / 1000.0,
+                    stats.getLatency(99.9) / 1000.0));
+        }
+
+        return result.toString();
+    }
+
+    /**
+     * The statistics of one operation on a command.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+    public static class OperationStats {
+
+        /**
+         * The name of the command.
+         */
+        private final String command;
+
+        /**
+         * Either {@code execute} or {@code complete}.
+         */
+        private final String operation;
+
+        /**
+         * The number of times the operation completed successfully.
+         */
+        private final long count;
+
+        /**
+         * The number of times the operation threw.
+         */
+        private final long errors;
+
+        /**
+         * The number of successful operations per second.
+         */
+        private final double throughput;
+
+        @Getter(AccessLevel.NONE)
+        private final LatencyHistogram histogram;
+
+        /**
+         * The latency in nanoseconds under which the given percentage of operations completed, accurate to about 3%.
+         */
+        public long getLatency(double percentile) {
+            return histogram.getPercentile(percentile);
+        }
+    }
+}